@@ -0,0 +1,143 @@
+package uk.ac.bradford.spacegame;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.bradford.spacegame.GameEngine.TileType;
+
+/**
+ * JMH benchmarks for the turn pipeline of the GameEngine. Each benchmark runs
+ * one step of a turn on a headless engine and reports operations per second.
+ * The benchmarks are run by the "bench" target of the Ant build, which also
+ * enables the gc profiler to report the allocation rate of every step. Every
+ * benchmark is run for each of the level sizes in the grid parameter.
+ * @author klaudiabzdyk
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameEngineBenchmark {
+
+    /**
+     * The number of moves of the blasters fired in one invocation of the
+     * moveBlasters benchmark, the number of moves before they disappear.
+     */
+    static final int BLASTER_MOVES = 5;
+
+    /**
+     * The size of the level, written as the width and height in tiles
+     * separated by an x.
+     */
+    @Param({"25x18", "250x250", "1000x1000"})
+    String grid;
+
+    /**
+     * The headless engine used by the benchmarks.
+     */
+    GameEngine engine;
+
+    /**
+     * Creates a new headless engine with a level of the size given by the
+     * grid parameter before every iteration. The seed is fixed, so every run
+     * measures the same levels.
+     */
+    @Setup(Level.Iteration)
+    public void setUp() {
+        int separator = grid.indexOf('x');
+        int width = Integer.parseInt(grid.substring(0, separator));
+        int height = Integer.parseInt(grid.substring(separator + 1));
+        engine = new GameEngine(width, height, GameConfig.DEFAULT, 42);
+    }
+
+    /**
+     * Measures a complete turn without any input from the player. A new game
+     * is started when the game is over, which resets the progress of the
+     * player, so almost every invocation is a normal turn.
+     * @return true if the game was still running after the turn
+     */
+    @Benchmark
+    public boolean doTurn() {
+        boolean running = engine.doTurn();
+        if (!running) {
+            engine.startGame();
+        }
+        return running;
+    }
+
+    /**
+     * Measures the generation of a new level.
+     * @return the generated tiles
+     */
+    @Benchmark
+    public TileType[][] generateLevel() {
+        return engine.generateLevel();
+    }
+
+    /**
+     * Measures rebuilding the spawns index from the tiles of the level.
+     * @return the rebuilt spawns index
+     */
+    @Benchmark
+    public SpawnIndex getSpawns() {
+        return engine.getSpawns();
+    }
+
+    /**
+     * Measures spawning the aliens of a level. The aliens are removed again
+     * afterwards, giving their tiles back to the spawns index, so every
+     * invocation spawns them into the same number of free tiles.
+     * @return the spawned aliens
+     */
+    @Benchmark
+    public Alien[] spawnAliens() {
+        Alien[] aliens = engine.spawnAliens();
+        engine.despawnAliens();
+        return aliens;
+    }
+
+    /**
+     * Measures moving every asteroid of the level by one tile.
+     */
+    @Benchmark
+    public void moveAsteroids() {
+        engine.moveAsteroids();
+    }
+
+    /**
+     * Measures computing the lasers of the aliens and the damage they deal.
+     * @return the laser beams of the aliens
+     */
+    @Benchmark
+    public LaserSpans aliensLasers() {
+        return engine.aliensLasers();
+    }
+
+    /**
+     * Measures moving blasters, over the whole life of a volley: the blasters
+     * are fired and then moved BLASTER_MOVES times, as in the turns of a
+     * game. The score is the time of one move, including its share of the
+     * firing.
+     */
+    @Benchmark
+    @OperationsPerInvocation(BLASTER_MOVES)
+    public void moveBlasters() {
+        engine.fireBlaster();
+        for (int i = 0; i < BLASTER_MOVES; i++) {
+            engine.moveBlasters();
+        }
+    }
+}
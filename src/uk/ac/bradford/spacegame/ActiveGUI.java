@@ -0,0 +1,263 @@
+package uk.ac.bradford.spacegame;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferStrategy;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import javax.swing.JFrame;
+import uk.ac.bradford.spacegame.GameEngine.TileType;
+
+/**
+ * The ActiveGUI class is a GameDisplay that renders actively instead of
+ * waiting for Swing to repaint. Every update from the engine is turned into
+ * an immutable FrameSnapshot and published, and a dedicated render thread
+ * draws the latest snapshot at a fixed frame rate into a BufferStrategy with
+ * page flipping. Every frame is recorded in the same PaintMetrics as the
+ * frames of GameGUI, so frame pacing can be checked through JMX. Like
+ * GameGUI, keyboard events are passed to a registered InputHandler.
+ * @author klaudiabzdyk
+ */
+public class ActiveGUI extends JFrame implements GameDisplay {
+
+    /**
+     * The version of the serialized form of the window.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The size of the box the score is drawn in, in pixels.
+     */
+    private static final int SCORE_WIDTH = 160;
+    private static final int SCORE_HEIGHT = 19;
+
+    /**
+     * The colour of the box the score is drawn in, a translucent black.
+     */
+    private static final Color SCORE_COLOR = new Color(0, 0, 0, 160);
+
+    /**
+     * The AWT canvas the frames are drawn to, which owns the BufferStrategy.
+     */
+    private final java.awt.Canvas surface;
+
+    /**
+     * The images of tiles and entities.
+     */
+    private final Sprites sprites;
+
+    /**
+     * The width of the viewport, measured in tiles.
+     */
+    private final int columns;
+
+    /**
+     * The height of the viewport, measured in tiles.
+     */
+    private final int rows;
+
+    /**
+     * The time between two frames, in nanoseconds.
+     */
+    private final long framePeriod;
+
+    /**
+     * The latest snapshot published by the engine, or null before the first
+     * update.
+     */
+    private volatile FrameSnapshot snapshot;
+
+    /**
+     * The points and levels cleared of the player, as drawn at the top of
+     * every frame, or null before the first update.
+     */
+    private volatile String score;
+
+    /**
+     * Set to false to stop the render thread.
+     */
+    private volatile boolean running = true;
+
+    /**
+     * The times taken to draw the frames and the snapshots they dropped.
+     */
+    private final PaintMetrics metrics = new PaintMetrics();
+
+    /**
+     * Creates the window and starts the render thread.
+     * @param columns The width of the viewport, measured in tiles
+     * @param rows The height of the viewport, measured in tiles
+     * @param framesPerSecond The number of frames drawn every second
+     */
+    public ActiveGUI(int columns, int rows, int framesPerSecond) {
+        this.columns = columns;
+        this.rows = rows;
+        framePeriod = TimeUnit.SECONDS.toNanos(1) / framesPerSecond;
+        sprites = new Sprites();
+        surface = new java.awt.Canvas();
+        surface.setPreferredSize(new Dimension(columns * GameGUI.TILE_WIDTH, rows * GameGUI.TILE_HEIGHT));
+        surface.setIgnoreRepaint(true);
+        setIgnoreRepaint(true);
+        add(surface);
+        setTitle("spAce");
+        pack();
+        setResizable(false);
+        setLocationRelativeTo(null);        //sets position of frame on screen
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        Thread renderer = new Thread(this::renderLoop, "render");
+        renderer.setDaemon(true);
+        renderer.start();
+    }
+
+    /**
+     * Registers an object to be passed keyboard events captured by the GUI.
+     * @param i the InputHandler object that will process keyboard events to
+     * make the game respond to input
+     */
+    public void registerKeyHandler(InputHandler i) {
+        addKeyListener(i);
+        surface.addKeyListener(i);
+    }
+
+    /**
+     * Takes a snapshot of the game and publishes it to the render thread,
+     * which draws it in its next frame.
+     * @param tiles A 2-dimensional array of TileTypes of the current level
+     * @param player The Player object, or null
+     * @param aliens An array of Alien objects
+     * @param asteroids An array of Asteroid objects
+     * @param blasters An array of Blaster objects
+     * @param lasers The laser beams of the aliens, or null
+     * @param changed Not used, as every frame is drawn completely
+     */
+    @Override
+    public void updateDisplay(TileType[][] tiles, Player player, Alien[] aliens, Asteroid[] asteroids, Blaster[] blasters, LaserSpans lasers, DirtyCells changed) {
+        snapshot = new FrameSnapshot(tiles, player, aliens, asteroids, blasters, lasers, columns, rows);
+        metrics.recordSnapshot(1);
+    }
+
+    /**
+     * Method to show the score of the player. The score is drawn at the top
+     * left corner of every frame from then on.
+     * @param points The number of points the player has gained this level
+     * @param cleared The number of levels cleared by the player
+     */
+    @Override
+    public void updateScore(int points, int cleared) {
+        score = "points " + points + "  level " + cleared;
+    }
+
+    /**
+     * Method called when the game is over. It stops the render thread and
+     * closes the game.
+     * @param won true if the player cleared every level
+     */
+    @Override
+    public void gameOver(boolean won) {
+        running = false;
+        System.exit(0);
+    }
+
+    /**
+     * Gets the metrics of the frames drawn by the render thread.
+     * @return the paint metrics of the window
+     */
+    public PaintMetrics getPaintMetrics() {
+        return metrics;
+    }
+
+    /**
+     * The loop run by the render thread. It draws a frame at the start of
+     * every frame period and then sleeps until the next one. If drawing falls
+     * behind, the missed frames are skipped instead of being drawn late.
+     */
+    private void renderLoop() {
+        long next = System.nanoTime();
+        while (running) {
+            FrameSnapshot s = snapshot;
+            if (s != null && surface.isDisplayable()) {
+                long start = System.nanoTime();
+                int drawn = show(s);
+                if (drawn >= 0) {
+                    metrics.recordFrame(start, System.nanoTime() - start, drawn);
+                }
+            }
+            next += framePeriod;
+            long now = System.nanoTime();
+            if (next < now) {
+                next = now;
+            } else {
+                LockSupport.parkNanos(next - now);
+            }
+        }
+    }
+
+    /**
+     * Draws a snapshot into the back buffer and flips it to the screen,
+     * drawing again if the contents of the buffers were lost.
+     * @param s The snapshot to draw
+     * @return the number of sprites drawn, or -1 if the BufferStrategy was
+     * only created and nothing was drawn
+     */
+    private int show(FrameSnapshot s) {
+        BufferStrategy strategy = surface.getBufferStrategy();
+        if (strategy == null) {
+            surface.createBufferStrategy(2);
+            return -1;
+        }
+        int drawn;
+        do {
+            do {
+                Graphics2D g2 = (Graphics2D) strategy.getDrawGraphics();
+                try {
+                    drawn = render(g2, s, sprites);
+                    drawScore(g2, score);
+                } finally {
+                    g2.dispose();
+                }
+            } while (strategy.contentsRestored());
+            strategy.show();
+        } while (strategy.contentsLost());
+        return drawn;
+    }
+
+    /**
+     * Draws a complete frame: the tiles in view, then the entities on top of
+     * them, drawn the same way as by GameGUI.
+     * @param g2 The graphics object to use for drawing
+     * @param s The snapshot to draw
+     * @param sprites The images of tiles and entities
+     * @return the number of sprites drawn
+     */
+    static int render(Graphics2D g2, FrameSnapshot s, Sprites sprites) {
+        g2.setColor(Color.BLACK);
+        g2.fillRect(0, 0, s.columns * GameGUI.TILE_WIDTH, s.rows * GameGUI.TILE_HEIGHT);
+        int drawn = 0;
+        for (int i = s.viewX; i < s.viewX + s.columns; i++) {
+            for (int j = s.viewY; j < s.viewY + s.rows; j++) {
+                TileType t = s.getTile(i, j);
+                if (t != null) {
+                    sprites.draw(g2, sprites.tileSprite(t, i, j), (i - s.viewX) * GameGUI.TILE_WIDTH, (j - s.viewY) * GameGUI.TILE_HEIGHT);
+                    drawn++;
+                }
+            }
+        }
+        return drawn + GameGUI.drawEntities(g2, s, sprites);
+    }
+
+    /**
+     * Draws the score in a box at the top left corner of the frame.
+     * @param g2 The graphics object to use for drawing
+     * @param score The score to draw, or null to draw nothing
+     */
+    private static void drawScore(Graphics2D g2, String score) {
+        if (score == null) {
+            return;
+        }
+        g2.setColor(SCORE_COLOR);
+        g2.fillRect(0, 0, SCORE_WIDTH, SCORE_HEIGHT);
+        g2.setColor(Color.WHITE);
+        g2.drawString(score, 4, 14);
+    }
+}
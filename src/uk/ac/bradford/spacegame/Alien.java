@@ -28,4 +28,41 @@ public class Alien extends Ship {
         setPosition(x, y);
     }
     
+    /**
+     * Creates an Alien object that is a view of a slot in an EntityStore,
+     * which holds the position and the hull strength of the alien.
+     * @param m Maximum hull strength for the alien's ship.
+     * @param s The store holding the aliens of the level
+     * @param i The slot of this alien in the store
+     */
+    public Alien(int m, EntityStore s, int i) {
+        super(s, i);
+        maxHull = m;
+    }
+    
+    /**
+     * Method to get the alien's current hullStrength value, which is read
+     * from the EntityStore if this alien is a view of one.
+     * @return the current hull strength of this Alien.
+     */
+    @Override
+    public int getHullStrength() {
+        return store != null ? store.hull[slot] : hullStrength;
+    }
+    
+    /**
+     * Changes the Alien's health by the specified amount, writing the new
+     * value to the EntityStore if this alien is a view of one.
+     * @param change The value that will be added to the current Alien hull
+     * strength value.
+     */
+    @Override
+    public void changeHullStrength(int change) {
+        if (store == null) {
+            super.changeHullStrength(change);
+        } else {
+            store.hull[slot] = (short) Math.min(store.hull[slot] + change, maxHull);
+        }
+    }
+    
 }
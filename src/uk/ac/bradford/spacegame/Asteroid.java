@@ -5,8 +5,6 @@
  */
 package uk.ac.bradford.spacegame;
 
-import java.util.Random;
-
 /**
  * The Asteroid class extends the Entity class and adds a Direction enumeration
  * type and a single attribute to store a Direction value. Objects of this class
@@ -20,9 +18,48 @@ public class Asteroid extends Entity {
      * Four directions, UP, DOWN, LEFT, RIGHT, UPRIGHT, UPLEFT, DOWNRIGHT, DOWNLEFT and NONE are permitted.
      */
     public enum Direction {
-        UP, DOWN, LEFT, RIGHT, NONE, UPRIGHT, UPLEFT, DOWNRIGHT, DOWNLEFT
+        UP(0, -1), DOWN(0, 1), LEFT(-1, 0), RIGHT(1, 0), NONE(0, 0),
+        UPRIGHT(1, -1), UPLEFT(-1, -1), DOWNRIGHT(1, 1), DOWNLEFT(-1, 1);
+        
+        /**
+         * The change of the X co-ordinate when moving one tile in this direction.
+         */
+        private final int dx;
+        
+        /**
+         * The change of the Y co-ordinate when moving one tile in this direction.
+         */
+        private final int dy;
+        
+        private Direction(int dx, int dy) {
+            this.dx = dx;
+            this.dy = dy;
+        }
+        
+        /**
+         * Gets the change of the X co-ordinate when moving in this direction.
+         * @return -1, 0 or 1
+         */
+        public int getDX() {
+            return dx;
+        }
+        
+        /**
+         * Gets the change of the Y co-ordinate when moving in this direction.
+         * @return -1, 0 or 1
+         */
+        public int getDY() {
+            return dy;
+        }
     }
     
+    /**
+     * All Direction values, indexed by their ordinal. Used to turn directions
+     * kept in an EntityStore back into Direction values without copying the
+     * array returned by Direction.values().
+     */
+    static final Direction[] DIRECTIONS = Direction.values();
+    
     /**
      * Stores the movement direction for a single asteroid object.
      */
@@ -34,18 +71,20 @@ public class Asteroid extends Entity {
      * for this asteroid.
      */
     public Direction getMovementDirection() {
-        return moveDirection;
+        return store != null ? DIRECTIONS[store.direction[slot]] : moveDirection;
     }
     
     /**
      * Creates an asteroid object with a random Direction value chosen uniformly
      * from the first five values and a position specified by the two integer
-     * values passed to this constructor.
+     * values passed to this constructor. The direction is drawn from the
+     * given stream, so seeded games stay reproducible.
      * @param x The x co-ordinate for this asteroid
      * @param y The y co-ordinate for this asteroid
+     * @param random The stream the direction is drawn from
      */
-    public Asteroid(int x, int y) {
-        this(x, y, Direction.values()[new Random().nextInt(Direction.values().length-4)]);
+    public Asteroid(int x, int y, RandomStream random) {
+        this(x, y, DIRECTIONS[random.nextInt(DIRECTIONS.length - 4)]);
     }
     
     /**
@@ -60,4 +99,14 @@ public class Asteroid extends Entity {
         setPosition(x, y);
         moveDirection = d;
     }
+    
+    /**
+     * Creates an asteroid object that is a view of a slot in an EntityStore,
+     * which holds the position and the movement direction of the asteroid.
+     * @param s The store holding the asteroids of the level
+     * @param i The slot of this asteroid in the store
+     */
+    public Asteroid(EntityStore s, int i) {
+        super(s, i);
+    }
 }
@@ -0,0 +1,206 @@
+package uk.ac.bradford.spacegame;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.LongFunction;
+
+/**
+ * The BatchRunner class plays many independent games without a display and
+ * summarises how they went, e.g. to check the difficulty of the levels. Every
+ * game has its own headless GameEngine and its own InputPolicy deciding the
+ * actions of the player, so the games share no state and are played in
+ * parallel on a ForkJoinPool: the range of games is split in halves until the
+ * ranges are small, each range is played on one thread into its own
+ * BatchSummary, and the summaries are combined as the halves are joined.
+ * A game is stopped if it has not ended after a maximum number of turns, as a
+ * policy that never moves into danger could otherwise play forever.
+ * @author klaudiabzdyk
+ */
+public class BatchRunner {
+
+    /**
+     * The largest number of games played by a task without splitting it.
+     */
+    private static final int GAMES_PER_TASK = 16;
+
+    /**
+     * The number of games to play.
+     */
+    private final int games;
+
+    /**
+     * The number of turns after which a game is stopped.
+     */
+    private final int maxTurns;
+
+    /**
+     * The width of the levels in tiles.
+     */
+    private final int width;
+
+    /**
+     * The height of the levels in tiles.
+     */
+    private final int height;
+
+    /**
+     * The difficulty settings of every game.
+     */
+    private final GameConfig config;
+
+    /**
+     * The seed of the batch. Game i is played by an engine seeded with seed
+     * plus i, so running a batch again plays the same games.
+     */
+    private final long seed;
+
+    /**
+     * Creates the policy of a game from the seed of the game.
+     */
+    private final LongFunction<InputPolicy> policies;
+
+    /**
+     * Creates a runner for a batch of games.
+     * @param games The number of games to play
+     * @param maxTurns The number of turns after which a game is stopped
+     * @param width The width of the levels in tiles
+     * @param height The height of the levels in tiles
+     * @param config The difficulty settings of every game
+     * @param seed The seed of the batch, from which the seed of the engine of
+     * every game is made
+     * @param policies Creates the policy of a game from the seed of the game,
+     * seed plus the index of the game, e.g. InputPolicy::random, so the inputs
+     * change with the seed of the batch like the levels do
+     */
+    public BatchRunner(int games, int maxTurns, int width, int height, GameConfig config, long seed, LongFunction<InputPolicy> policies) {
+        if (games < 0 || maxTurns < 1) {
+            throw new IllegalArgumentException("Invalid batch: " + games + " games of " + maxTurns + " turns");
+        }
+        this.games = games;
+        this.maxTurns = maxTurns;
+        this.width = width;
+        this.height = height;
+        this.config = config;
+        this.seed = seed;
+        this.policies = policies;
+    }
+
+    /**
+     * Creates a runner for a batch of games with the default difficulty and
+     * seed 0.
+     * @param games The number of games to play
+     * @param maxTurns The number of turns after which a game is stopped
+     * @param width The width of the levels in tiles
+     * @param height The height of the levels in tiles
+     * @param policies Creates the policy of a game from the seed of the game,
+     * which is the index of the game as the batch has seed 0
+     */
+    public BatchRunner(int games, int maxTurns, int width, int height, LongFunction<InputPolicy> policies) {
+        this(games, maxTurns, width, height, GameConfig.DEFAULT, 0, policies);
+    }
+
+    /**
+     * Plays every game on the common ForkJoinPool.
+     * @return the summary of all games
+     */
+    public BatchSummary run() {
+        return run(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Plays every game on the given pool.
+     * @param pool The pool whose threads play the games
+     * @return the summary of all games
+     */
+    public BatchSummary run(ForkJoinPool pool) {
+        return pool.invoke(new Games(0, games));
+    }
+
+    /**
+     * Plays one game until it ends or reaches the maximum number of turns,
+     * and adds its result to a summary.
+     * @param index The index of the game
+     * @param summary The summary to add the result to
+     */
+    private void play(int index, BatchSummary summary) {
+        GameEngine engine = new GameEngine(width, height, config, seed + index);
+        InputPolicy policy = policies.apply(seed + index);
+        boolean running = true;
+        while (running && engine.getTurnNumber() < maxTurns) {
+            running = engine.step(policy.nextAction(engine));
+        }
+        int cleared = engine.getLevelsCleared();
+        summary.add(engine.getTurnNumber(), engine.getPoints(), cleared,
+                engine.isGameOver() && cleared >= config.getLevelsToWin(), engine.isGameOver());
+    }
+
+    /**
+     * A task playing a range of games, which splits itself in halves while
+     * the range is larger than GAMES_PER_TASK.
+     */
+    private class Games extends RecursiveTask<BatchSummary> {
+
+        /**
+         * The version of the serialized form of the task.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The index of the first game in the range.
+         */
+        private final int from;
+
+        /**
+         * The index after the last game in the range.
+         */
+        private final int to;
+
+        /**
+         * Creates a task for the games from index from up to index to.
+         * @param from The index of the first game
+         * @param to The index after the last game
+         */
+        Games(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected BatchSummary compute() {
+            if (to - from <= GAMES_PER_TASK) {
+                BatchSummary summary = new BatchSummary(config.getLevelsToWin());
+                for (int i = from; i < to; i++) {
+                    play(i, summary);
+                }
+                return summary;
+            }
+            int middle = (from + to) >>> 1;
+            Games left = new Games(from, middle);
+            left.fork();
+            BatchSummary right = new Games(middle, to).compute();
+            return left.join().combine(right);
+        }
+    }
+
+    /**
+     * Plays a batch of games with random policies and prints the summary.
+     * The arguments are the number of games (1000 by default), the maximum
+     * number of turns of a game (10000 by default), and the width and height
+     * of the levels (GRID_WIDTH by GRID_HEIGHT by default). The batch has seed
+     * 0, so the same arguments always play the same games.
+     * @param args The arguments of the batch
+     */
+    public static void main(String[] args) {
+        int games = args.length >= 1 ? Integer.parseInt(args[0]) : 1000;
+        int maxTurns = args.length >= 2 ? Integer.parseInt(args[1]) : 10000;
+        int width = args.length >= 4 ? Integer.parseInt(args[2]) : GameEngine.GRID_WIDTH;
+        int height = args.length >= 4 ? Integer.parseInt(args[3]) : GameEngine.GRID_HEIGHT;
+        BatchRunner runner = new BatchRunner(games, maxTurns, width, height, InputPolicy::random);
+        long start = System.nanoTime();
+        BatchSummary summary = runner.run();
+        long millis = (System.nanoTime() - start) / 1000000;
+        System.out.print(summary.report());
+        System.out.println("time:           " + millis + " ms on "
+                + ForkJoinPool.commonPool().getParallelism() + " threads");
+    }
+}
@@ -0,0 +1,177 @@
+package uk.ac.bradford.spacegame;
+
+/**
+ * The BatchSummary class aggregates the results of many games played by a
+ * BatchRunner: how many turns the player survived, the points gained in the
+ * last level and the number of levels cleared. Summaries of different groups
+ * of games can be combined, so every thread of the runner can fill its own
+ * summary without sharing it.
+ * @author klaudiabzdyk
+ */
+public class BatchSummary {
+
+    /**
+     * The number of games in the summary.
+     */
+    private int games;
+
+    /**
+     * The number of games in which the player cleared every level.
+     */
+    private int wins;
+
+    /**
+     * The number of games stopped because they reached the turn limit.
+     */
+    private int unfinished;
+
+    /**
+     * The total number of turns played in all games.
+     */
+    private long totalTurns;
+
+    /**
+     * The smallest number of turns played in one game.
+     */
+    private int minTurns = Integer.MAX_VALUE;
+
+    /**
+     * The largest number of turns played in one game.
+     */
+    private int maxTurns;
+
+    /**
+     * The total number of points gained in the last level of all games.
+     */
+    private long totalPoints;
+
+    /**
+     * The total number of levels cleared in all games.
+     */
+    private long totalCleared;
+
+    /**
+     * The number of games for every number of levels cleared, from 0 to the
+     * number of levels that wins the game.
+     */
+    private final int[] clearedGames;
+
+    /**
+     * Creates an empty summary.
+     * @param levelsToWin The number of levels that wins the games, the most
+     * levels a game can clear
+     */
+    public BatchSummary(int levelsToWin) {
+        clearedGames = new int[levelsToWin + 1];
+    }
+
+    /**
+     * Adds the result of one game to the summary.
+     * @param turns The number of turns played
+     * @param points The points gained in the last level
+     * @param cleared The number of levels cleared
+     * @param won true if the player cleared every level
+     * @param finished false if the game was stopped at the turn limit
+     */
+    public void add(int turns, int points, int cleared, boolean won, boolean finished) {
+        games++;
+        if (won) {
+            wins++;
+        }
+        if (!finished) {
+            unfinished++;
+        }
+        totalTurns += turns;
+        minTurns = Math.min(minTurns, turns);
+        maxTurns = Math.max(maxTurns, turns);
+        totalPoints += points;
+        totalCleared += cleared;
+        clearedGames[Math.min(cleared, clearedGames.length - 1)]++;
+    }
+
+    /**
+     * Adds the results of the games of another summary to this one.
+     * @param other The summary to add, of games with the same number of
+     * levels to win
+     * @return this summary
+     * @throws IllegalArgumentException if the other summary is of games with
+     * a different number of levels to win
+     */
+    public BatchSummary combine(BatchSummary other) {
+        if (other.clearedGames.length != clearedGames.length) {
+            throw new IllegalArgumentException("Summaries of games with " + (clearedGames.length - 1)
+                    + " and " + (other.clearedGames.length - 1) + " levels to win");
+        }
+        games += other.games;
+        wins += other.wins;
+        unfinished += other.unfinished;
+        totalTurns += other.totalTurns;
+        minTurns = Math.min(minTurns, other.minTurns);
+        maxTurns = Math.max(maxTurns, other.maxTurns);
+        totalPoints += other.totalPoints;
+        totalCleared += other.totalCleared;
+        for (int i = 0; i < clearedGames.length; i++) {
+            clearedGames[i] += other.clearedGames[i];
+        }
+        return this;
+    }
+
+    /**
+     * Gets the number of games in the summary.
+     * @return the number of games
+     */
+    public int getGames() {
+        return games;
+    }
+
+    /**
+     * Gets the number of games in which the player cleared every level.
+     * @return the number of won games
+     */
+    public int getWins() {
+        return wins;
+    }
+
+    /**
+     * Gets the average number of turns survived.
+     * @return the average number of turns, 0 if there are no games
+     */
+    public double getAverageTurns() {
+        return games == 0 ? 0 : (double) totalTurns / games;
+    }
+
+    /**
+     * Gets the average number of points gained in the last level.
+     * @return the average number of points, 0 if there are no games
+     */
+    public double getAveragePoints() {
+        return games == 0 ? 0 : (double) totalPoints / games;
+    }
+
+    /**
+     * Gets the average number of levels cleared.
+     * @return the average number of levels, 0 if there are no games
+     */
+    public double getAverageCleared() {
+        return games == 0 ? 0 : (double) totalCleared / games;
+    }
+
+    /**
+     * Creates a report of the summary that can be printed.
+     * @return the report, several lines long
+     */
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("games:          %d (%d won, %d stopped at the turn limit)%n", games, wins, unfinished));
+        sb.append(String.format("turns survived: avg %.1f, min %d, max %d%n",
+                getAverageTurns(), games == 0 ? 0 : minTurns, maxTurns));
+        sb.append(String.format("points:         avg %.2f in the last level%n", getAveragePoints()));
+        sb.append(String.format("levels cleared: avg %.2f%n", getAverageCleared()));
+        for (int i = 0; i < clearedGames.length; i++) {
+            if (clearedGames[i] > 0) {
+                sb.append(String.format("  %2d levels: %d games%n", i, clearedGames[i]));
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,165 @@
+package uk.ac.bradford.spacegame;
+
+import java.util.Arrays;
+import uk.ac.bradford.spacegame.GameEngine.TileType;
+
+/**
+ * The BitboardTiles class stores the tiles of a level as bitboards, one bit
+ * set packed into a long array for every TileType. Tiles are numbered row by
+ * row, so the tile at (x, y) is bit y * width + x, and a tile has exactly one
+ * of its bits set across the bitboards. Toggling every pulsar is a bitwise
+ * operation on a few words. The 2D array of TileTypes
+ * needed by the display is kept as a cache which is refreshed only after the
+ * tiles have changed; toggling the pulsars updates just the pulsar entries
+ * of the cache.
+ * @author klaudiabzdyk
+ */
+public class BitboardTiles implements Tiles {
+
+    /**
+     * All TileType values, indexed by their ordinal. TileType.values()
+     * copies the array on every call, and get is called for every pulsar
+     * when the pulsars are toggled.
+     */
+    private static final TileType[] TYPES = TileType.values();
+
+    /**
+     * The width of the level, measured in tiles.
+     */
+    private final int width;
+
+    /**
+     * The height of the level, measured in tiles.
+     */
+    private final int height;
+
+    /**
+     * One bitboard for every TileType, indexed by the ordinal of the type.
+     */
+    private final long[][] boards;
+
+    /**
+     * The 2D array of TileTypes returned by toArray().
+     */
+    private final TileType[][] array;
+
+    /**
+     * Set to true when the tiles have changed since array was last filled.
+     */
+    private boolean arrayStale = true;
+
+    /**
+     * Creates a level of the given size in which every tile is space.
+     * @param width The width of the level, measured in tiles
+     * @param height The height of the level, measured in tiles
+     */
+    public BitboardTiles(int width, int height) {
+        this.width = width;
+        this.height = height;
+        int words = (width * height + 63) >>> 6;
+        boards = new long[TYPES.length][words];
+        array = new TileType[width][height];
+        fill(TileType.SPACE);
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public TileType get(int x, int y) {
+        int bit = y * width + x;
+        long mask = 1L << bit;
+        for (int t = 0; t < TYPES.length; t++) {
+            if ((boards[t][bit >>> 6] & mask) != 0) {
+                return TYPES[t];
+            }
+        }
+        return TileType.SPACE;
+    }
+
+    @Override
+    public void set(int x, int y, TileType type) {
+        int bit = y * width + x;
+        long mask = 1L << bit;
+        for (long[] board : boards) {
+            board[bit >>> 6] &= ~mask;
+        }
+        boards[type.ordinal()][bit >>> 6] |= mask;
+        arrayStale = true;
+    }
+
+    @Override
+    public void fill(TileType type) {
+        for (long[] board : boards) {
+            Arrays.fill(board, 0L);
+        }
+        long[] board = boards[type.ordinal()];
+        int tiles = width * height;
+        for (int w = 0; w < board.length; w++) {
+            int bits = Math.min(64, tiles - (w << 6));
+            board[w] = bits == 64 ? -1L : (1L << bits) - 1;
+        }
+        arrayStale = true;
+    }
+
+    /**
+     * Turns every inactive pulsar into an active pulsar by moving the bits of
+     * the inactive pulsar bitboard into the active pulsar bitboard.
+     */
+    @Override
+    public void activatePulsars() {
+        swap(TileType.PULSAR_INACTIVE, TileType.PULSAR_ACTIVE);
+    }
+
+    /**
+     * Turns every active pulsar into an inactive pulsar by moving the bits of
+     * the active pulsar bitboard into the inactive pulsar bitboard.
+     */
+    @Override
+    public void deactivatePulsars() {
+        swap(TileType.PULSAR_ACTIVE, TileType.PULSAR_INACTIVE);
+    }
+
+    @Override
+    public TileType[][] toArray() {
+        if (arrayStale) {
+            for (int x = 0; x < width; x++) {
+                for (int y = 0; y < height; y++) {
+                    array[x][y] = get(x, y);
+                }
+            }
+            arrayStale = false;
+        }
+        return array;
+    }
+
+    /**
+     * Moves every bit of one bitboard into another one, turning every tile of
+     * the first type into the second type. If the cached 2D array is up to
+     * date only the changed tiles are written to it.
+     * @param from The TileType whose tiles are changed
+     * @param to The TileType they are changed to
+     */
+    private void swap(TileType from, TileType to) {
+        long[] source = boards[from.ordinal()];
+        long[] target = boards[to.ordinal()];
+        for (int w = 0; w < source.length; w++) {
+            long changed = source[w];
+            target[w] |= changed;
+            source[w] = 0;
+            if (!arrayStale) {
+                for (; changed != 0; changed &= changed - 1) {
+                    int bit = (w << 6) + Long.numberOfTrailingZeros(changed);
+                    array[bit % width][bit / width] = to;
+                }
+            }
+        }
+    }
+}
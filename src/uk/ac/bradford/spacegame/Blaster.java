@@ -24,7 +24,7 @@ public class Blaster extends Entity {
      * for this blaster.
      */
     public Asteroid.Direction getBlasterDirection() {
-        return blasterDirection;
+        return store != null ? Asteroid.DIRECTIONS[store.direction[slot]] : blasterDirection;
     }
     
     /**
@@ -39,4 +39,14 @@ public class Blaster extends Entity {
         setPosition(x, y);
         blasterDirection = d;
     }
+    
+    /**
+     * Creates a blaster object that is a view of a slot in an EntityStore,
+     * which holds the position and the movement direction of the blaster.
+     * @param s The store holding the blasters of the level
+     * @param i The slot of this blaster in the store
+     */
+    public Blaster(EntityStore s, int i) {
+        super(s, i);
+    }
 }
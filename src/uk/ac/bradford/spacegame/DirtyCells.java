@@ -0,0 +1,172 @@
+package uk.ac.bradford.spacegame;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The DirtyCells class records the tiles whose appearance has changed since
+ * the display was last updated, e.g. because an entity moved into or out of
+ * them, so the display only has to redraw those tiles. Tiles are packed as
+ * x * height + y, kept in a list in the order they were marked and in a bit
+ * set so every tile is only recorded once. When most of the level changes,
+ * e.g. when a new level is generated, every tile is marked at once instead.
+ * Tiles whose type changed, rather than an entity on them, are also
+ * recorded by a flag, so a display that keeps an image of the tiles knows
+ * when to draw it again without comparing the tiles itself.
+ * @author klaudiabzdyk
+ */
+public class DirtyCells {
+
+    /**
+     * The width of the level, measured in tiles.
+     */
+    private final int width;
+
+    /**
+     * The height of the level, measured in tiles.
+     */
+    private final int height;
+
+    /**
+     * The packed tiles that were marked. Only the first count entries are
+     * used.
+     */
+    private int[] cells = new int[64];
+
+    /**
+     * The number of tiles marked.
+     */
+    private int count;
+
+    /**
+     * Records which packed tiles are in the cells list.
+     */
+    private final BitSet marked;
+
+    /**
+     * Set to true when every tile of the level has changed.
+     */
+    private boolean all;
+
+    /**
+     * Set to true when the type of a tile has changed.
+     */
+    private boolean tilesChanged;
+
+    /**
+     * Creates an empty set of changed tiles for a level of the given size.
+     * @param width The width of the level, measured in tiles
+     * @param height The height of the level, measured in tiles
+     */
+    public DirtyCells(int width, int height) {
+        this.width = width;
+        this.height = height;
+        marked = new BitSet(width * height);
+    }
+
+    /**
+     * Marks a tile as changed. Tiles off the level are ignored.
+     * @param x The X co-ordinate of the tile
+     * @param y The Y co-ordinate of the tile
+     */
+    public void mark(int x, int y) {
+        if (all || x < 0 || x >= width || y < 0 || y >= height) {
+            return;
+        }
+        int cell = x * height + y;
+        if (!marked.get(cell)) {
+            marked.set(cell);
+            if (count == cells.length) {
+                cells = Arrays.copyOf(cells, count * 2);
+            }
+            cells[count++] = cell;
+        }
+    }
+
+    /**
+     * Marks a span of tiles in one row as changed, e.g. a laser beam.
+     * @param y The row of the span
+     * @param x1 The X co-ordinate of the first tile of the span
+     * @param x2 The X co-ordinate just after the last tile of the span
+     */
+    public void markSpan(int y, int x1, int x2) {
+        for (int x = x1; x < x2; x++) {
+            mark(x, y);
+        }
+    }
+
+    /**
+     * Marks a tile whose type has changed, e.g. a pulsar that was toggled.
+     * @param x The X co-ordinate of the tile
+     * @param y The Y co-ordinate of the tile
+     */
+    public void markTile(int x, int y) {
+        tilesChanged = true;
+        mark(x, y);
+    }
+
+    /**
+     * Marks every tile of the level as changed, including the type of every
+     * tile.
+     */
+    public void markAll() {
+        all = true;
+        tilesChanged = true;
+    }
+
+    /**
+     * Checks if every tile of the level has changed.
+     * @return true if the whole level has to be redrawn
+     */
+    public boolean isAll() {
+        return all;
+    }
+
+    /**
+     * Checks if the type of any tile has changed, i.e. markTile or markAll
+     * was called.
+     * @return true if the tiles have to be drawn again
+     */
+    public boolean isTilesChanged() {
+        return tilesChanged;
+    }
+
+    /**
+     * Gets the number of tiles marked one by one. Only meaningful if isAll()
+     * returns false.
+     * @return the number of changed tiles
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Gets the X co-ordinate of a changed tile.
+     * @param i The index of the tile, less than size()
+     * @return the X co-ordinate of the tile
+     */
+    public int getX(int i) {
+        return cells[i] / height;
+    }
+
+    /**
+     * Gets the Y co-ordinate of a changed tile.
+     * @param i The index of the tile, less than size()
+     * @return the Y co-ordinate of the tile
+     */
+    public int getY(int i) {
+        return cells[i] % height;
+    }
+
+    /**
+     * Removes every mark, once the display has been updated.
+     */
+    public void clear() {
+        for (int i = 0; i < count; i++) {
+            marked.clear(cells[i]);
+        }
+        count = 0;
+        all = false;
+        tilesChanged = false;
+    }
+}
@@ -22,12 +22,42 @@ public abstract class Entity {
      */
     private int yPos;
     
+    /**
+     * The EntityStore holding the state of this entity, or null if the
+     * entity stores its own state. Entities with a store are views of a slot
+     * in that store.
+     */
+    final EntityStore store;
+    
+    /**
+     * The slot of this entity in its EntityStore.
+     */
+    final int slot;
+    
+    /**
+     * Creates an Entity that stores its own state.
+     */
+    protected Entity() {
+        this(null, -1);
+    }
+    
+    /**
+     * Creates an Entity that is a view of a slot in an EntityStore. Getting
+     * or setting the position of the Entity reads or writes the store.
+     * @param s The EntityStore holding the state of this Entity
+     * @param i The slot of this Entity in the store
+     */
+    protected Entity(EntityStore s, int i) {
+        store = s;
+        slot = i;
+    }
+    
     /**
      * This method returns the current X position for this entity in the game
      * @return The X co-ordinate of this Entity in the game
      */
     public int getX() {
-        return xPos;
+        return store != null ? store.x[slot] : xPos;
     }
     
     /**
@@ -35,7 +65,7 @@ public abstract class Entity {
      * @return The Y co-ordinate of this Entity in the game
      */
     public int getY() {
-        return yPos;
+        return store != null ? store.y[slot] : yPos;
     }
     
     /**
@@ -44,8 +74,12 @@ public abstract class Entity {
      * @param y The new Y position for this Entity
      */
     public final void setPosition (int x, int y) {
-        xPos = x;
-        yPos = y;
+        if (store != null) {
+            store.setPosition(slot, x, y);
+        } else {
+            xPos = x;
+            yPos = y;
+        }
     }
     
 }
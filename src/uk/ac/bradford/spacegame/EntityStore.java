@@ -0,0 +1,215 @@
+package uk.ac.bradford.spacegame;
+
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+
+/**
+ * The EntityStore class stores the state of many entities of one kind, e.g.
+ * all asteroids of a level, as a structure of arrays. Every entity is a slot,
+ * an index into the primitive arrays holding its position, movement direction
+ * and hull strength, and a bit set records which slots are alive. Loops in the
+ * engine run over these contiguous arrays directly, while the Entity classes
+ * can be created as views of a slot so the rest of the game can keep using
+ * them. If the store has an occupancy grid it is kept up to date whenever the
+ * position of a slot is set, and if it has a DirtyCells object the tiles
+ * entities are spawned in, killed in, or move into and out of are marked as
+ * changed.
+ * @author klaudiabzdyk
+ */
+public class EntityStore {
+
+    /**
+     * The X position of every slot.
+     */
+    final int[] x;
+
+    /**
+     * The Y position of every slot.
+     */
+    final int[] y;
+
+    /**
+     * The movement direction of every slot, stored as the ordinal of an
+     * Asteroid.Direction value.
+     */
+    final byte[] direction;
+
+    /**
+     * The hull strength of every slot.
+     */
+    final short[] hull;
+
+    /**
+     * Records which slots hold an entity that is alive.
+     */
+    private final BitSet alive;
+
+    /**
+     * The occupancy grid updated when slots move, or null.
+     */
+    private final OccupancyGrid grid;
+
+    /**
+     * The changed tiles marked when slots are spawned, killed or move, or
+     * null.
+     */
+    private final DirtyCells changed;
+
+    /**
+     * Creates an empty store.
+     * @param capacity The maximum number of entities in the store
+     * @param grid The occupancy grid that tracks the entities of this store,
+     * or null if they are not tracked
+     * @param changed The DirtyCells object in which the tiles changed by the
+     * entities of this store are marked, or null
+     */
+    public EntityStore(int capacity, OccupancyGrid grid, DirtyCells changed) {
+        x = new int[capacity];
+        y = new int[capacity];
+        direction = new byte[capacity];
+        hull = new short[capacity];
+        alive = new BitSet(capacity);
+        this.grid = grid;
+        this.changed = changed;
+    }
+
+    /**
+     * Gets the occupancy grid tracking the entities of this store.
+     * @return the grid, or null if the entities are not tracked
+     */
+    OccupancyGrid getGrid() {
+        return grid;
+    }
+
+    /**
+     * Creates an empty store which does not mark changed tiles.
+     * @param capacity The maximum number of entities in the store
+     * @param grid The occupancy grid that tracks the entities of this store,
+     * or null if they are not tracked
+     */
+    public EntityStore(int capacity, OccupancyGrid grid) {
+        this(capacity, grid, null);
+    }
+
+    /**
+     * Gets the maximum number of entities in the store.
+     * @return the number of slots
+     */
+    public int capacity() {
+        return x.length;
+    }
+
+    /**
+     * Makes a slot alive and puts it at the given position.
+     * @param slot The slot of the new entity
+     * @param px The X position of the new entity
+     * @param py The Y position of the new entity
+     */
+    public void spawn(int slot, int px, int py) {
+        alive.set(slot);
+        x[slot] = px;
+        y[slot] = py;
+        if (grid != null) {
+            grid.move(slot, px, py);
+        }
+        if (changed != null) {
+            changed.mark(px, py);
+        }
+    }
+
+    /**
+     * Kills the entity in a slot and takes it out of the occupancy grid.
+     * @param slot The slot of the entity
+     */
+    public void kill(int slot) {
+        alive.clear(slot);
+        if (grid != null) {
+            grid.remove(slot);
+        }
+        if (changed != null) {
+            changed.mark(x[slot], y[slot]);
+        }
+    }
+
+    /**
+     * Kills every entity in the store.
+     */
+    public void clear() {
+        for (int i = nextAlive(0); i >= 0; i = nextAlive(i + 1)) {
+            kill(i);
+        }
+    }
+
+    /**
+     * Checks if the entity in a slot is alive.
+     * @param slot The slot of the entity
+     * @return true if the slot is alive
+     */
+    public boolean isAlive(int slot) {
+        return alive.get(slot);
+    }
+
+    /**
+     * Finds the next alive slot, used to iterate over the store:
+     * for (int i = store.nextAlive(0); i &gt;= 0; i = store.nextAlive(i + 1))
+     * @param from The slot to start searching from, inclusive
+     * @return the first alive slot at or after from, or -1 if there are none
+     */
+    public int nextAlive(int from) {
+        return alive.nextSetBit(from);
+    }
+
+    /**
+     * Sets the position of the entity in a slot, updating the occupancy grid.
+     * @param slot The slot of the entity
+     * @param px The new X position
+     * @param py The new Y position
+     */
+    public void setPosition(int slot, int px, int py) {
+        if (changed != null) {
+            changed.mark(x[slot], y[slot]);
+            changed.mark(px, py);
+        }
+        x[slot] = px;
+        y[slot] = py;
+        if (grid != null) {
+            grid.move(slot, px, py);
+        }
+    }
+
+    /**
+     * Gets the number of bytes written by writeTo.
+     * @return the size of the state of the store in bytes
+     */
+    public int snapshotSize() {
+        return 4 + 15 * alive.cardinality();
+    }
+
+    /**
+     * Writes the state of the slots that are alive: their position,
+     * movement direction and hull strength. The occupancy grid is not
+     * written, it has its own writeTo method.
+     * @param out The buffer to write to
+     */
+    public void writeTo(ByteBuffer out) {
+        out.putInt(alive.cardinality());
+        for (int i = nextAlive(0); i >= 0; i = nextAlive(i + 1)) {
+            out.putInt(i).putInt(x[i]).putInt(y[i]).put(direction[i]).putShort(hull[i]);
+        }
+    }
+
+    /**
+     * Restores the state written by writeTo into a store of the same
+     * capacity. Slots that were not alive are killed.
+     * @param in The buffer to read from
+     */
+    public void readFrom(ByteBuffer in) {
+        clear();
+        for (int n = in.getInt(); n > 0; n--) {
+            int i = in.getInt();
+            spawn(i, in.getInt(), in.getInt());
+            direction[i] = in.get();
+            hull[i] = in.getShort();
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package uk.ac.bradford.spacegame;
+
+import java.util.Arrays;
+import uk.ac.bradford.spacegame.GameEngine.TileType;
+
+/**
+ * The FrameSnapshot class is an immutable copy of everything needed to draw
+ * one frame of the game: the tiles inside a viewport and the positions and
+ * health of the entities in it. Snapshots are taken on the thread running
+ * the engine and handed over to a render thread, which can draw them at its
+ * own pace without ever seeing the engine change the game while it draws.
+ * Only the part of the level inside the viewport is copied, and entities
+ * kept in an EntityStore with an occupancy grid are found by looking up the
+ * tiles in view, so taking a snapshot does not depend on the size of the
+ * level.
+ * @author klaudiabzdyk
+ */
+public final class FrameSnapshot {
+
+    /**
+     * The X co-ordinate of the top left tile of the viewport in the level.
+     */
+    final int viewX;
+
+    /**
+     * The Y co-ordinate of the top left tile of the viewport in the level.
+     */
+    final int viewY;
+
+    /**
+     * The width of the viewport, measured in tiles.
+     */
+    final int columns;
+
+    /**
+     * The height of the viewport, measured in tiles.
+     */
+    final int rows;
+
+    /**
+     * The tiles in view, packed as (x - viewX) * rows + (y - viewY). Tiles
+     * of the viewport outside the level are null.
+     */
+    private final TileType[] tiles;
+
+    /**
+     * The level co-ordinates of the asteroids in view, as X and Y pairs.
+     */
+    final int[] asteroids;
+
+    /**
+     * The level co-ordinates of the aliens in view, as X and Y pairs.
+     */
+    final int[] aliens;
+
+    /**
+     * The remaining health of every alien in aliens, from 0.0 to 1.0.
+     */
+    final double[] alienHealth;
+
+    /**
+     * The level co-ordinates of the blasters in view, as X and Y pairs.
+     */
+    final int[] blasters;
+
+    /**
+     * The laser beams in view, as triples of the row, the X co-ordinate of
+     * the first tile and the X co-ordinate just after the last tile, clipped
+     * to the viewport.
+     */
+    final int[] lasers;
+
+    /**
+     * True if there is a player to draw.
+     */
+    final boolean hasPlayer;
+
+    /**
+     * The X co-ordinate of the player in the level.
+     */
+    final int playerX;
+
+    /**
+     * The Y co-ordinate of the player in the level.
+     */
+    final int playerY;
+
+    /**
+     * The remaining health of the player, from 0.0 to 1.0.
+     */
+    final double playerHealth;
+
+    /**
+     * True if the type of any tile may have changed since the previous
+     * snapshot, so the tiles have to be drawn again.
+     */
+    final boolean tilesChanged;
+
+    /**
+     * The value of System.nanoTime() when the snapshot was taken.
+     */
+    final long createdNanos;
+
+    /**
+     * Takes a snapshot of the game for a viewport of the given size, placed so
+     * the player is as close to its centre as possible without showing
+     * anything outside the level.
+     * @param tiles A 2-dimensional array of TileTypes of the current level
+     * @param player The Player object, or null
+     * @param aliens An array of Alien objects, or null
+     * @param asteroids An array of Asteroid objects, or null
+     * @param blasters An array of Blaster objects, or null
+     * @param lasers The laser beams of the aliens, or null
+     * @param columns The width of the viewport, measured in tiles
+     * @param rows The height of the viewport, measured in tiles
+     */
+    public FrameSnapshot(TileType[][] tiles, Player player, Alien[] aliens, Asteroid[] asteroids,
+            Blaster[] blasters, LaserSpans lasers, int columns, int rows) {
+        this(tiles, player, aliens, asteroids, blasters, lasers, columns, rows, true);
+    }
+
+    /**
+     * Takes a snapshot of the game for a viewport of the given size, recording
+     * whether the type of any tile changed since the previous snapshot.
+     * @param tiles A 2-dimensional array of TileTypes of the current level
+     * @param player The Player object, or null
+     * @param aliens An array of Alien objects, or null
+     * @param asteroids An array of Asteroid objects, or null
+     * @param blasters An array of Blaster objects, or null
+     * @param lasers The laser beams of the aliens, or null
+     * @param columns The width of the viewport, measured in tiles
+     * @param rows The height of the viewport, measured in tiles
+     * @param tilesChanged true if the type of any tile may have changed, as
+     * reported by DirtyCells.isTilesChanged
+     */
+    public FrameSnapshot(TileType[][] tiles, Player player, Alien[] aliens, Asteroid[] asteroids,
+            Blaster[] blasters, LaserSpans lasers, int columns, int rows, boolean tilesChanged) {
+        this.tilesChanged = tilesChanged;
+        this.columns = columns;
+        this.rows = rows;
+        int levelWidth = tiles == null ? 0 : tiles.length;
+        int levelHeight = levelWidth == 0 ? 0 : tiles[0].length;
+        hasPlayer = player != null;
+        playerX = hasPlayer ? player.getX() : 0;
+        playerY = hasPlayer ? player.getY() : 0;
+        playerHealth = hasPlayer ? (double) player.getHullStrength() / player.getMaxHull() : 0;
+        viewX = Math.max(0, Math.min(playerX - columns / 2, levelWidth - columns));
+        viewY = Math.max(0, Math.min(playerY - rows / 2, levelHeight - rows));
+        this.tiles = new TileType[columns * rows];
+        for (int i = viewX; i < Math.min(levelWidth, viewX + columns); i++) {
+            for (int j = viewY; j < Math.min(levelHeight, viewY + rows); j++) {
+                this.tiles[(i - viewX) * rows + (j - viewY)] = tiles[i][j];
+            }
+        }
+        this.asteroids = positions(asteroids, indicesInView(asteroids));
+        this.blasters = positions(blasters, indicesInView(blasters));
+        int[] alienIndices = indicesInView(aliens);
+        this.aliens = positions(aliens, alienIndices);
+        alienHealth = new double[alienIndices.length];
+        for (int k = 0; k < alienIndices.length; k++) {
+            Alien a = aliens[alienIndices[k]];
+            alienHealth[k] = (double) a.getHullStrength() / a.getMaxHull();
+        }
+        this.lasers = lasersInView(lasers);
+        createdNanos = System.nanoTime();
+    }
+
+    /**
+     * Gets a tile of the viewport.
+     * @param x The X co-ordinate of the tile in the level
+     * @param y The Y co-ordinate of the tile in the level
+     * @return the type of the tile, or null if it is outside the level
+     */
+    public TileType getTile(int x, int y) {
+        return tiles[(x - viewX) * rows + (y - viewY)];
+    }
+
+    /**
+     * Checks if a tile is inside the viewport.
+     * @param x The X co-ordinate of the tile in the level
+     * @param y The Y co-ordinate of the tile in the level
+     * @return true if the tile is drawn
+     */
+    public boolean inView(int x, int y) {
+        return x >= viewX && x < viewX + columns && y >= viewY && y < viewY + rows;
+    }
+
+    /**
+     * Finds the entities inside the viewport. If the entities are views of an
+     * EntityStore with an occupancy grid and the viewport has fewer tiles
+     * than the array has elements, the tiles in view are looked up in the
+     * grid, whose slots are the indices of the entities; otherwise the array
+     * is scanned.
+     * @param entities An array of entities, null elements and a null array
+     * are skipped
+     * @return the indices of the entities in view in the array
+     */
+    private int[] indicesInView(Entity[] entities) {
+        if (entities == null) {
+            return new int[0];
+        }
+        OccupancyGrid grid = null;
+        if (columns * rows < entities.length) {
+            for (Entity e : entities) {
+                if (e != null) {
+                    grid = e.store != null ? e.store.getGrid() : null;
+                    break;
+                }
+            }
+        }
+        int[] indices = new int[Math.min(entities.length, 16)];
+        int n = 0;
+        if (grid != null) {
+            int right = viewX + columns;
+            int bottom = viewY + rows;
+            for (int i = viewX; i < right; i++) {
+                for (int j = viewY; j < bottom; j++) {
+                    if (getTile(i, j) == null) {
+                        continue;       //outside the level
+                    }
+                    for (int slot = grid.first(i, j); slot >= 0; slot = grid.next(slot)) {
+                        if (slot < entities.length && entities[slot] != null) {
+                            if (n == indices.length) {
+                                indices = Arrays.copyOf(indices, n * 2);
+                            }
+                            indices[n++] = slot;
+                        }
+                    }
+                }
+            }
+        } else {
+            for (int i = 0; i < entities.length; i++) {
+                Entity e = entities[i];
+                if (e != null && inView(e.getX(), e.getY())) {
+                    if (n == indices.length) {
+                        indices = Arrays.copyOf(indices, n * 2);
+                    }
+                    indices[n++] = i;
+                }
+            }
+        }
+        return Arrays.copyOf(indices, n);
+    }
+
+    /**
+     * Copies the positions of some of the entities of an array.
+     * @param entities An array of entities
+     * @param indices The indices of the entities to copy
+     * @return the X and Y co-ordinates of the entities, in pairs
+     */
+    private static int[] positions(Entity[] entities, int[] indices) {
+        int[] positions = new int[indices.length * 2];
+        for (int k = 0; k < indices.length; k++) {
+            Entity e = entities[indices[k]];
+            positions[2 * k] = e.getX();
+            positions[2 * k + 1] = e.getY();
+        }
+        return positions;
+    }
+
+    /**
+     * Copies the laser beams crossing the viewport, clipped to it.
+     * @param lasers The laser beams of the aliens, or null
+     * @return the row, start and end of every beam in view, in triples
+     */
+    private int[] lasersInView(LaserSpans lasers) {
+        if (lasers == null) {
+            return new int[0];
+        }
+        int[] spans = new int[lasers.getCount() * 3];
+        int k = 0;
+        for (int i = 0; i < lasers.getCount(); i++) {
+            int row = lasers.getRow(i);
+            int start = Math.max(lasers.getStart(i), viewX);
+            int end = Math.min(lasers.getEnd(i), viewX + columns);
+            if (row >= viewY && row < viewY + rows && start < end) {
+                spans[k++] = row;
+                spans[k++] = start;
+                spans[k++] = end;
+            }
+        }
+        return Arrays.copyOf(spans, k);
+    }
+}
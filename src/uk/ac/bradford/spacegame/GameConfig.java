@@ -0,0 +1,119 @@
+package uk.ac.bradford.spacegame;
+
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * The GameConfig class holds the difficulty settings of a game: how the
+ * chances of black holes and pulsars grow as levels are cleared, how many
+ * points clear a level and how many levels win the game. A configuration
+ * cannot be changed once created and every GameEngine keeps its own, so
+ * engines running at the same time in one program do not affect each other
+ * and always make levels of the same difficulty.
+ * @author klaudiabzdyk
+ */
+public final class GameConfig {
+
+    /**
+     * The settings of the original game: a 7% chance of black holes and a 3%
+     * chance of pulsars in the first level, each growing by 1% with every
+     * cleared level, 10 points to clear a level and 10 levels to win.
+     */
+    public static final GameConfig DEFAULT = new GameConfig(linear(0.07, 0.01), linear(0.03, 0.01), 10, 10);
+
+    /**
+     * Gives the chance of a black hole for the number of levels cleared.
+     */
+    private final IntToDoubleFunction blackHoleChance;
+
+    /**
+     * Gives the chance of a pulsar for the number of levels cleared.
+     */
+    private final IntToDoubleFunction pulsarChance;
+
+    /**
+     * The number of points needed to clear a level.
+     */
+    private final int pointsPerLevel;
+
+    /**
+     * The number of levels to clear to win the game.
+     */
+    private final int levelsToWin;
+
+    /**
+     * Creates a configuration. The chance functions are given the number of
+     * levels cleared before the level being generated, from 0 for the first
+     * level, and must always give the same chance for the same level.
+     * @param blackHoleChance Gives the chance of a black hole being generated
+     * instead of open space, 1.0 is 100% chance, 0.0 is 0% chance
+     * @param pulsarChance Gives the chance of a pulsar being generated
+     * instead of open space
+     * @param pointsPerLevel The number of points needed to clear a level
+     * @param levelsToWin The number of levels to clear to win the game
+     * @throws IllegalArgumentException if pointsPerLevel or levelsToWin is
+     * less than 1
+     */
+    public GameConfig(IntToDoubleFunction blackHoleChance, IntToDoubleFunction pulsarChance, int pointsPerLevel, int levelsToWin) {
+        if (pointsPerLevel < 1 || levelsToWin < 1) {
+            throw new IllegalArgumentException("Invalid goals: " + pointsPerLevel + " points per level, " + levelsToWin + " levels");
+        }
+        this.blackHoleChance = blackHoleChance;
+        this.pulsarChance = pulsarChance;
+        this.pointsPerLevel = pointsPerLevel;
+        this.levelsToWin = levelsToWin;
+    }
+
+    /**
+     * Creates a chance function that starts at a given chance and grows by the
+     * same amount with every cleared level.
+     * @param first The chance in the first level
+     * @param increase The amount added for every cleared level
+     * @return the chance function
+     */
+    public static IntToDoubleFunction linear(double first, double increase) {
+        return cleared -> first + increase * cleared;
+    }
+
+    /**
+     * Gets the chance of a black hole being generated instead of open space.
+     * @param cleared The number of levels cleared before the level
+     * @return the chance, from 0.0 to 1.0
+     */
+    public double getBlackHoleChance(int cleared) {
+        return clamp(blackHoleChance.applyAsDouble(cleared));
+    }
+
+    /**
+     * Gets the chance of a pulsar being generated instead of open space.
+     * @param cleared The number of levels cleared before the level
+     * @return the chance, from 0.0 to 1.0
+     */
+    public double getPulsarChance(int cleared) {
+        return clamp(pulsarChance.applyAsDouble(cleared));
+    }
+
+    /**
+     * Gets the number of points needed to clear a level.
+     * @return the points per level
+     */
+    public int getPointsPerLevel() {
+        return pointsPerLevel;
+    }
+
+    /**
+     * Gets the number of levels to clear to win the game.
+     * @return the number of levels
+     */
+    public int getLevelsToWin() {
+        return levelsToWin;
+    }
+
+    /**
+     * Limits a chance to the range from 0.0 to 1.0.
+     * @param chance The chance given by a chance function
+     * @return the limited chance
+     */
+    private static double clamp(double chance) {
+        return Math.max(0.0, Math.min(1.0, chance));
+    }
+}
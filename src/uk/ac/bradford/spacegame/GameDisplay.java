@@ -0,0 +1,44 @@
+package uk.ac.bradford.spacegame;
+
+import uk.ac.bradford.spacegame.GameEngine.TileType;
+
+/**
+ * The GameDisplay interface is implemented by anything a GameEngine can report
+ * the state of the game to. GameGUI implements it to draw the game on screen,
+ * while HeadlessDisplay ignores everything so the engine can run without a
+ * display, e.g. on a server or in simulations.
+ * @author klaudiabzdyk
+ */
+public interface GameDisplay {
+
+    /**
+     * Called after every turn with the current tiles and entities of the game.
+     * Arrays and array elements can be null, in which case nothing should be
+     * shown for them.
+     * @param tiles A 2-dimensional array of TileTypes of the current level
+     * @param player The Player object, or null
+     * @param aliens An array of Alien objects
+     * @param asteroids An array of Asteroid objects
+     * @param blasters An array of Blaster objects
+     * @param lasers The laser beams of the aliens, or null
+     * @param changed The tiles whose appearance changed since the previous
+     * call, or null if everything should be redrawn. It is cleared by the
+     * engine after this method returns, so it must not be kept.
+     */
+    void updateDisplay(TileType[][] tiles, Player player, Alien[] aliens, Asteroid[] asteroids, Blaster[] blasters, LaserSpans lasers, DirtyCells changed);
+
+    /**
+     * Called after every turn with the current score of the player.
+     * @param points The number of points the player has gained this level
+     * @param cleared The number of levels cleared by the player
+     */
+    void updateScore(int points, int cleared);
+
+    /**
+     * Called once when the game is over, either because the player's ship
+     * was destroyed or because the player cleared every level.
+     * @param won true if the player cleared every level, false if the
+     * player's ship was destroyed
+     */
+    void gameOver(boolean won);
+}
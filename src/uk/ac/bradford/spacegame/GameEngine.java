@@ -5,9 +5,9 @@
  */
 package uk.ac.bradford.spacegame;
 
-import java.awt.Point;
-import java.util.ArrayList;
-import java.util.Random;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * The GameEngine class is responsible for managing information about the game,
@@ -32,39 +32,66 @@ public class GameEngine {
     }
 
     /**
-     * The width of the level, measured in tiles. Changing this may cause the
-     * display to draw incorrectly, and as a minimum the size of the GUI would
-     * need to be adjusted.
+     * The default width of the level, measured in tiles, used by engines that
+     * are not given a size. It also matches the default size of the GUI.
      */
     public static final int GRID_WIDTH = 25;
 
     /**
-     * The height of the level, measured in tiles. Changing this may cause the
-     * display to draw incorrectly, and as a minimum the size of the GUI would
-     * need to be adjusted.
+     * The default height of the level, measured in tiles, used by engines
+     * that are not given a size. It also matches the default size of the GUI.
      */
     public static final int GRID_HEIGHT = 18;
 
     /**
-     * The chance of a black hole being generated instead of open space when
-     * generating the level. 1.0 is 100% chance, 0.0 is 0% chance. This can be
-     * changed to affect the difficulty.
+     * The width of the level of this engine, measured in tiles.
      */
-    private static double BLACK_HOLE_CHANCE = 0.07;
+    private final int width;
 
     /**
-     * The chance of a pulsar being created instead of open space when
-     * generating the level. 1.0 is 100% chance, 0.0 is 0% chance. This can be
-     * changed to affect the difficulty.
+     * The height of the level of this engine, measured in tiles.
      */
-    private static double PULSAR_CHANCE = 0.03;
+    private final int height;
 
     /**
-     * A random number generator that can be used to include randomised choices
-     * in the creation of levels, in choosing places to spawn the player, aliens
-     * and asteroids, and to randomise movement or other factors.
+     * The difficulty settings of this engine: the chances of black holes and
+     * pulsars in every level and the points and levels needed to win. They
+     * cannot change, so engines running at the same time do not affect each
+     * other.
      */
-    private Random rng = new Random();
+    private final GameConfig config;
+
+    /**
+     * The seed all random number streams of this engine are split from. Two
+     * engines with the same seed, configuration and size play the same game
+     * when given the same actions. It is replaced when a snapshot is
+     * restored.
+     */
+    private long seed;
+
+    /**
+     * The random number stream used to generate levels and to choose the
+     * places the player, aliens and asteroids spawn in at the start of a
+     * level.
+     */
+    private final RandomStream levelRng;
+
+    /**
+     * The random number stream used to choose the movement directions of
+     * asteroids.
+     */
+    private final RandomStream asteroidRng;
+
+    /**
+     * The random number stream used to choose the moves of aliens.
+     */
+    private final RandomStream alienRng;
+
+    /**
+     * The random number stream used to choose the places asteroids respawn
+     * in when they are destroyed or taken by an alien.
+     */
+    private final RandomStream respawnRng;
 
     /**
      * The number of levels cleared by the player in this game. Can be used to
@@ -89,10 +116,17 @@ public class GameEngine {
     private int points = 0;
 
     /**
-     * The array of Laser type objects.
-     * Null values in this array are skipped during drawing and movement processing.
+     * The laser beams fired by the aliens, stored as spans of tiles in the
+     * rows of the aliens. Empty on turns when the aliens do not fire.
      */
-    private Laser[] lasers;
+    private LaserSpans lasers;
+
+    /**
+     * Distance tables from every tile to the nearest obstacle in each of the
+     * eight directions, rebuilt when a level is generated. Used to check if
+     * moves are legal and to find where laser beams end.
+     */
+    private ObstacleMap obstacles = new ObstacleMap();
     
     /**
      * Tracks the current turn number. Used to control pulsar activation and
@@ -101,23 +135,70 @@ public class GameEngine {
     private int turnNumber = 1;
 
     /**
-     * The GUI associated with a GameEngine object. THis link allows the engine
-     * to pass level (tiles) and entity information to the GUI to be drawn.
+     * The display associated with a GameEngine object. This link allows the
+     * engine to pass level (tiles) and entity information to the GUI to be
+     * drawn. A HeadlessDisplay is used when the engine runs without a GUI.
+     */
+    private GameDisplay display;
+
+    /**
+     * Set to true when the player's ship was destroyed or every level was
+     * cleared. No more turns are performed once the game is over.
+     */
+    private boolean gameOver = false;
+
+    /**
+     * Records the action of the player in every turn, or null if the game is
+     * not recorded.
+     */
+    private ReplayRecorder recorder;
+
+    /**
+     * Records the time taken by the phases of every turn, or null if turns
+     * are not timed.
+     */
+    private TurnTimings timings;
+
+    /**
+     * The time taken by every phase of the current turn in nanoseconds,
+     * indexed by the ordinal of the TurnPhase, -1 for phases not performed.
+     */
+    private final long[] phaseNanos = new long[TurnPhase.values().length];
+
+    /**
+     * The time the current turn started, from System.nanoTime, when turns
+     * are timed.
      */
-    private GameGUI gui;
+    private long turnStart;
 
     /**
-     * The 2 dimensional array of tiles the represent the current level. The
-     * size of this array uses the GRID_HEIGHT and GRID_WIDTH attributes
-     * when it is created.
+     * The tiles that represent the current level, stored as bitboards. The
+     * size of the level uses the width and height attributes. The display is
+     * passed the tiles as a 2D array produced by tiles.toArray().
      */
-    private TileType[][] tiles;
+    private final Tiles tiles;
 
     /**
-     * An ArrayList of Point objects used to create and track possible locations
-     * to spawn the player, aliens and asteroids.
+     * The positions of the pulsars of the current level, recorded when the
+     * level is generated, and the damage field giving the number of active
+     * pulsars around every tile, rebuilt whenever the pulsars are toggled.
      */
-    private ArrayList<Point> spawns;
+    private final PulsarIndex pulsars = new PulsarIndex();
+
+    /**
+     * The tiles whose appearance changed since the display was last updated,
+     * passed to the display so it only redraws those tiles and cleared after
+     * every update.
+     */
+    private final DirtyCells changed;
+
+    /**
+     * A SpawnIndex used to track the space tiles that are not occupied by the
+     * player, an alien or an asteroid. It is rebuilt when a level is generated
+     * and updated whenever an entity moves, is spawned or is destroyed, so
+     * free locations can be picked without scanning the whole level.
+     */
+    private SpawnIndex spawns = new SpawnIndex();
 
     /**
      * A Player object that is the current player. This object stores the state
@@ -136,6 +217,19 @@ public class GameEngine {
      */
     private Alien[] aliens;
 
+    /**
+     * An OccupancyGrid used to find the aliens standing in a given tile
+     * without searching the aliens array. Slots in the grid are indexes
+     * of the aliens array.
+     */
+    private OccupancyGrid alienGrid;
+
+    /**
+     * The EntityStore holding the positions and hull strength of the aliens.
+     * The Alien objects in the aliens array are views of its slots.
+     */
+    private EntityStore alienStore;
+
     /**
      * An array of Asteroid objects that represents the asteroids in the current
      * level. Elements in this array are of the type Asteroid, meaning
@@ -144,6 +238,20 @@ public class GameEngine {
      * this array are skipped during drawing and movement processing.
      */
     private Asteroid[] asteroids;
+
+    /**
+     * An OccupancyGrid used to find the asteroids standing in a given tile
+     * without searching the asteroids array. Slots in the grid are indexes
+     * of the asteroids array.
+     */
+    private OccupancyGrid asteroidGrid;
+
+    /**
+     * The EntityStore holding the positions and movement directions of the
+     * asteroids. The Asteroid objects in the asteroids array are views of
+     * its slots.
+     */
+    private EntityStore asteroidStore;
     
     /**
      * An array of Blaster objects that represents the blusters in the current
@@ -155,43 +263,186 @@ public class GameEngine {
     private Blaster[] blasters;
 
     /**
-     * Constructor that creates a GameEngine object and connects it with a
-     * GameGUI object.
+     * The EntityStore holding the positions and movement directions of the
+     * blasters. The Blaster objects in the blasters array are views of its
+     * slots, created once in blasterViews so no objects are created when
+     * blasters are fired.
+     */
+    private EntityStore blasterStore;
+
+    /**
+     * One Blaster view for every slot of blasterStore.
+     */
+    private Blaster[] blasterViews;
+
+    /**
+     * The movement direction of the blaster fired into each slot of the
+     * blasters array.
+     */
+    private static final Asteroid.Direction[] BLASTER_DIRECTIONS = {
+        Asteroid.Direction.LEFT, Asteroid.Direction.RIGHT, Asteroid.Direction.DOWN, Asteroid.Direction.UP,
+        Asteroid.Direction.UPRIGHT, Asteroid.Direction.UPLEFT, Asteroid.Direction.DOWNRIGHT, Asteroid.Direction.DOWNLEFT
+    };
+
+    /**
+     * The number every snapshot of an engine starts with, "SPSS" in ASCII.
+     */
+    private static final int SNAPSHOT_MAGIC = 0x53505353;
+
+    /**
+     * The version of the format of snapshots.
+     */
+    private static final byte SNAPSHOT_VERSION = 1;
+
+    /**
+     * Constructor that creates a GameEngine object with a level of the given
+     * size and connects it with a GameDisplay object, usually a GameGUI.
      *
-     * @param gui The GameGUI object that this engine will pass information to
-     * in order to draw levels and entities to the screen.
+     * @param display The GameDisplay object that this engine will pass
+     * information to in order to draw levels and entities to the screen.
+     * @param width The width of the level, measured in tiles
+     * @param height The height of the level, measured in tiles
+     * @param config The difficulty settings of the game
+     * @param seed The seed of the random number streams of the game
+     * @throws IllegalArgumentException if the width or height is less than 2
      */
-    public GameEngine(GameGUI gui) {
-        this.gui = gui;
+    public GameEngine(GameDisplay display, int width, int height, GameConfig config, long seed) {
+        if (width < 2 || height < 2) {
+            throw new IllegalArgumentException("Level must be at least 2x2 tiles: " + width + "x" + height);
+        }
+        this.display = display;
+        this.width = width;
+        this.height = height;
+        this.config = config;
+        this.seed = seed;
+        RandomStream root = new RandomStream(seed);
+        levelRng = root.split();
+        asteroidRng = root.split();
+        alienRng = root.split();
+        respawnRng = root.split();
+        tiles = new BitboardTiles(width, height);
+        changed = new DirtyCells(width, height);
         startGame();
     }
 
+    /**
+     * Constructor that creates a GameEngine object with a level of the given
+     * size and difficulty and a random seed, and connects it with a
+     * GameDisplay object, usually a GameGUI.
+     *
+     * @param display The GameDisplay object that this engine will pass
+     * information to in order to draw levels and entities to the screen.
+     * @param width The width of the level, measured in tiles
+     * @param height The height of the level, measured in tiles
+     * @param config The difficulty settings of the game
+     * @throws IllegalArgumentException if the width or height is less than 2
+     */
+    public GameEngine(GameDisplay display, int width, int height, GameConfig config) {
+        this(display, width, height, config, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Constructor that creates a GameEngine object with a level of the given
+     * size and the default difficulty, and connects it with a GameDisplay
+     * object, usually a GameGUI.
+     *
+     * @param display The GameDisplay object that this engine will pass
+     * information to in order to draw levels and entities to the screen.
+     * @param width The width of the level, measured in tiles
+     * @param height The height of the level, measured in tiles
+     * @throws IllegalArgumentException if the width or height is less than 2
+     */
+    public GameEngine(GameDisplay display, int width, int height) {
+        this(display, width, height, GameConfig.DEFAULT);
+    }
+
+    /**
+     * Constructor that creates a GameEngine object with a level of the
+     * default size, GRID_WIDTH by GRID_HEIGHT, and connects it with a
+     * GameDisplay object, usually a GameGUI.
+     *
+     * @param display The GameDisplay object that this engine will pass
+     * information to in order to draw levels and entities to the screen.
+     */
+    public GameEngine(GameDisplay display) {
+        this(display, GRID_WIDTH, GRID_HEIGHT);
+    }
+
+    /**
+     * Constructor that creates a headless GameEngine object with a level of
+     * the given size, difficulty and seed, which does not draw anything and
+     * can be run without a display. Engines created with the same arguments
+     * play the same game when given the same actions.
+     * @param width The width of the level, measured in tiles
+     * @param height The height of the level, measured in tiles
+     * @param config The difficulty settings of the game
+     * @param seed The seed of the random number streams of the game
+     */
+    public GameEngine(int width, int height, GameConfig config, long seed) {
+        this(new HeadlessDisplay(), width, height, config, seed);
+    }
+
+    /**
+     * Constructor that creates a headless GameEngine object with a level of
+     * the given size and difficulty, which does not draw anything and can be
+     * run without a display.
+     * @param width The width of the level, measured in tiles
+     * @param height The height of the level, measured in tiles
+     * @param config The difficulty settings of the game
+     */
+    public GameEngine(int width, int height, GameConfig config) {
+        this(new HeadlessDisplay(), width, height, config);
+    }
+
+    /**
+     * Constructor that creates a headless GameEngine object with a level of
+     * the given size, which does not draw anything and can be run without a
+     * display.
+     * @param width The width of the level, measured in tiles
+     * @param height The height of the level, measured in tiles
+     */
+    public GameEngine(int width, int height) {
+        this(width, height, GameConfig.DEFAULT);
+    }
+
+    /**
+     * Constructor that creates a headless GameEngine object with a level of
+     * the default size, which does not draw anything and can be run without a
+     * display.
+     */
+    public GameEngine() {
+        this(GRID_WIDTH, GRID_HEIGHT);
+    }
+
     /**
      * Generates a new level. The method builds a 2D array of TileTypes that
      * will be used to draw tiles to the screen and to add a variety of elements
      * into each level. Tiles can be space, black holes, active pulsars or
-     * inactive pulsars. 
+     * inactive pulsars. The tiles are stored as bitboards and the returned
+     * array is produced from them. The positions of the pulsars are recorded
+     * in the pulsar index as they are placed. Finally the pulsar damage field
+     * and the obstacle distance tables are rebuilt for the new level, and the
+     * whole level is marked as changed for the display.
      *
      * @return A 2D array of TileTypes representing the tiles in the current
      * level of the dungeon. The size of this array uses the width and height
-     * attributes of the level specified by GRID_WIDTH and GRID_HEIGHT.
+     * attributes of this engine.
      */
-    private TileType[][] generateLevel() {
-        tiles = new TileType[GRID_WIDTH][GRID_HEIGHT];
-        int numberOfTiles = GRID_WIDTH * GRID_HEIGHT;
-        int numberOfBHoles = (int) (numberOfTiles * BLACK_HOLE_CHANCE);
-        int numberOfPulsars = (int) (numberOfTiles * PULSAR_CHANCE);
+    TileType[][] generateLevel() {
+        int numberOfTiles = width * height;
+        //only tiles outside the last column and row are picked below, so
+        //never ask for more black holes and pulsars than fit in them
+        int free = (width - 1) * (height - 1);
+        int numberOfBHoles = Math.min((int) (numberOfTiles * config.getBlackHoleChance(cleared)), free);
+        int numberOfPulsars = Math.min((int) (numberOfTiles * config.getPulsarChance(cleared)), free - numberOfBHoles);
         int counter;
         int randomIndex;
         int randomSecIndex;
         /**
-         * loop for spaces which iterate tiles and puts space in every tale
+         * puts space in every tale
          */
-        for (int i = 0; i < tiles.length; i++) {
-            for (int j = 0; j < tiles[i].length; j++) {
-                    tiles[i][j] = TileType.SPACE;
-            }
-        }
+        tiles.fill(TileType.SPACE);
+        pulsars.reset(width, height);
         /**
          * loop for black holes which takes random number for width and random for
          * height for tiles and checks if that tale is space, if no, loop search for
@@ -200,10 +451,10 @@ public class GameEngine {
          */
         counter = 0;
         while (counter < numberOfBHoles) {
-            randomIndex = (int) (rng.nextDouble() * GRID_WIDTH - 1);
-            randomSecIndex = (int) (rng.nextDouble() * GRID_HEIGHT - 1);
-            if (tiles[randomIndex][randomSecIndex] == TileType.SPACE) {
-                tiles[randomIndex][randomSecIndex] = TileType.BLACK_HOLE;
+            randomIndex = (int) (levelRng.nextDouble() * width - 1);
+            randomSecIndex = (int) (levelRng.nextDouble() * height - 1);
+            if (tiles.get(randomIndex, randomSecIndex) == TileType.SPACE) {
+                tiles.set(randomIndex, randomSecIndex, TileType.BLACK_HOLE);
                 counter++;
             }
         }
@@ -217,144 +468,232 @@ public class GameEngine {
          */
         counter = 0;
         while (counter < numberOfPulsars) {
-            randomIndex = (int) (rng.nextDouble() * GRID_WIDTH - 1);
-            randomSecIndex = (int) (rng.nextDouble() * GRID_HEIGHT - 1);
-            if (tiles[randomIndex][randomSecIndex] == TileType.SPACE) {
-                if (rng.nextBoolean() == true) {
-                    tiles[randomIndex][randomSecIndex] = TileType.PULSAR_ACTIVE;
+            randomIndex = (int) (levelRng.nextDouble() * width - 1);
+            randomSecIndex = (int) (levelRng.nextDouble() * height - 1);
+            if (tiles.get(randomIndex, randomSecIndex) == TileType.SPACE) {
+                if (levelRng.nextBoolean() == true) {
+                    tiles.set(randomIndex, randomSecIndex, TileType.PULSAR_ACTIVE);
+                    pulsars.add(randomIndex, randomSecIndex);
                     counter++;
                 } else {
-                    tiles[randomIndex][randomSecIndex] = TileType.PULSAR_INACTIVE;
+                    tiles.set(randomIndex, randomSecIndex, TileType.PULSAR_INACTIVE);
+                    pulsars.add(randomIndex, randomSecIndex);
                     counter++;
                 }
             }
         }
-        return tiles;
+        pulsars.updateDamage(tiles);
+        changed.markAll();
+        TileType[][] level = tiles.toArray();
+        obstacles.rebuild(level);
+        return level;
     }
 
     /**
-     * Generates spawn points for entities. The method processes the tiles array
-     * and finds tiles that are suitable for spawning, i.e. space tiles.
-     * Suitable tiles are added to the ArrayList that will be returned as
-     * Point objects - Points are a simple kind of object that contain an X and
-     * a Y co-ordinate stored using the int primitive type.
+     * Generates spawn points for entities. The method rebuilds the spawns
+     * index from the tiles array, so that every tile suitable for spawning,
+     * i.e. every space tile, is free. It only needs to be called after a new
+     * level has been generated, because the index is kept up to date as
+     * entities move around the level.
      *
-     * @return An ArrayList containing Point objects representing suitable X and
-     * Y co-ordinates in the current level that entities can be spawned in.
-     */
-    private ArrayList<Point> getSpawns() {
-        spawns = new ArrayList<Point>();
-        for (int i = 0; i < tiles.length; i++) {
-            for (int j = 0; j < tiles[i].length; j++) {
-                if (tiles[i][j] == TileType.SPACE) {
-                    Point x = new Point();
-                    x.setLocation(i, j);
-                    spawns.add(x);
-                }
-            }
-        }
+     * @return The SpawnIndex holding suitable X and Y co-ordinates in the
+     * current level that entities can be spawned in.
+     */
+    SpawnIndex getSpawns() {
+        spawns.reset(tiles.toArray());
         return spawns;
     }
     
     /**
      * Creates array of Blaster type objects (of size 8) and sets each
-     * of them to null.
+     * of them to null. The array and the store behind it are only created
+     * the first time, later calls just remove every blaster.
      * @return An array of Blaster objects
      */
     private Blaster[] createBlastersList() {
-        blasters = new Blaster[8];
-        for (Blaster blaster : blasters) {
-            blaster = null;
+        if (blasters == null) {
+            blasterStore = new EntityStore(BLASTER_DIRECTIONS.length, null, changed);
+            blasterViews = new Blaster[BLASTER_DIRECTIONS.length];
+            for (int i = 0; i < blasterViews.length; i++) {
+                blasterViews[i] = new Blaster(blasterStore, i);
+            }
+            blasters = new Blaster[BLASTER_DIRECTIONS.length];
         }
+        blasterStore.clear();
+        Arrays.fill(blasters, null);
         return blasters;
     }
 
+    /**
+     * Creates the LaserSpans object holding the laser beams, big enough for
+     * a beam in every row as there can be only one alien in each row.
+     * @return An empty LaserSpans object
+     */
+    private LaserSpans createLasersList() {
+        lasers = new LaserSpans(height);
+        return lasers;
+    }
+
     /**
      * Spawns aliens in suitable locations in the current level. The method uses
-     * the spawns ArrayList to pick suitable positions to add aliens, removing
-     * these positions from the spawns ArrayList as they are used (using the
-     * remove() method) to avoid multiple entities spawning in the same
-     * location. The method creates aliens by instantiating the Alien class,
-     * setting health and the X and Y position for the alien using the Point
-     * object removed from the spawns ArrayList.
+     * the spawns index to pick suitable positions to add aliens, claiming
+     * these positions in the index as they are used to avoid multiple entities
+     * spawning in the same location. Only one alien can be spawned in each row,
+     * so fewer aliens are spawned if no free tile is left in a row without
+     * one.
+     * The method creates aliens by instantiating the Alien class, setting
+     * health and the X and Y position for the alien using the tile picked from
+     * the spawns index.
      *
      * @return An array of Alien objects representing the aliens for the current
      * level
      */
-    private Alien[] spawnAliens() {
-        int removeY;
-        int randomIndex;
+    Alien[] spawnAliens() {
         int counter = 0;
-        int astCounter = 0;
-        int playerX;
-        int playerY;
-        Point alienPoint;
-        aliens = new Alien[getSpawns().size()];
-        Point[] tilesForAliens = new Point[getSpawns().size()];
-        //loop makes all aliens equal to null
-        //and adds all spawns to tilesForAliens array
-        for (int i = 0; i < getSpawns().size(); i++) {
-            aliens[i] = null;
-            tilesForAliens[i] = getSpawns().get(i);
+        boolean[] rowTaken = new boolean[height];
+        //there can be no more aliens than rows
+        aliens = new Alien[Math.min(cleared + 2, height)];
+        //the grid and store have a slot for every row, so they are only
+        //created once and then reused by every level
+        if (alienStore == null) {
+            alienGrid = new OccupancyGrid(width, height, height);
+            alienStore = new EntityStore(height, alienGrid, changed);
+        } else {
+            alienStore.clear();
         }
+        //the free tiles in rows without an alien, which can still be picked
+        int[] freeInRow = new int[height];
+        spawns.countFreeByRow(freeInRow);
+        int pickable = spawns.size();
         //loop creates Alien type objects (the amount specified by using cleared variable)
-        while (counter < cleared + 2) {
-            astCounter = 0;
-            randomIndex = rng.nextInt(tilesForAliens.length);
-            alienPoint = tilesForAliens[randomIndex];
-            if (player != null) {
-                playerX = player.getX();
-                playerY = player.getY();
-                if (aliens[randomIndex] == null && alienPoint != null) {
-                    if (alienPoint.getX() != playerX || alienPoint.getY() != playerY) {
-                        //loop checks if there is at least one asteroid in that position
-                        for (int i = 0; i < asteroids.length; i++) {
-                            if (asteroids[i] != null && asteroids[i].getX() == alienPoint.getX() && asteroids[i].getY() == alienPoint.getY()) {
-                                astCounter++;
-                            }
-                        }
-                        if (astCounter < 1) {
-                            removeY = (int) alienPoint.getY();
-                            //delete every position with that y, because it can be only 
-                            //one alien in each row
-                            for (int i = 0; i < tilesForAliens.length; i++) {
-                                if (tilesForAliens[i] != null) {
-                                    Point spawn = tilesForAliens[i];
-                                    int spawnY = (int) spawn.getY();
-                                    if (spawnY == removeY) {
-                                        tilesForAliens[i] = null;
-                                    }
-                                }
-                            }
-                            Alien newAlien = new Alien(50, (int) alienPoint.getX(), (int) alienPoint.getY());
-                            aliens[randomIndex] = newAlien;
-                            counter++;
-                        }
-                    }
-                }
+        while (counter < aliens.length && pickable > 0) {
+            int cell = spawns.pick(levelRng);
+            int alienX = spawns.getX(cell);
+            int alienY = spawns.getY(cell);
+            //it can be only one alien in each row
+            if (!rowTaken[alienY]) {
+                rowTaken[alienY] = true;
+                pickable -= freeInRow[alienY];
+                spawns.claim(alienX, alienY);
+                alienStore.spawn(counter, alienX, alienY);
+                alienStore.hull[counter] = 50;
+                aliens[counter] = new Alien(50, alienStore, counter);
+                counter++;
             }
         }
         return aliens;
     }
 
     /**
-     * Spawns a Player entity in the game. The method uses the spawns ArrayList
-     * to select a suitable location to spawn the player and removes the Point
-     * from the spawns ArrayList. The method instantiates the Player class and
+     * Kills every alien of the level, releasing their tiles in the spawns
+     * index, so spawnAliens can be called again without running out of
+     * tiles. Used by the benchmarks.
+     */
+    void despawnAliens() {
+        for (int i = alienStore.nextAlive(0); i >= 0; i = alienStore.nextAlive(i + 1)) {
+            spawns.release(alienStore.x[i], alienStore.y[i]);
+            aliens[i] = null;
+        }
+        alienStore.clear();
+    }
+
+    /**
+     * Spawns a Player entity in the game. The method uses the spawns index
+     * to select a suitable location to spawn the player and claims that
+     * location in the index. The method instantiates the Player class and
      * assigns values for the health and position of the player.
      *
      * @return A Player object representing the player in the game
      */
     private Player spawnPlayer() {
-        int randomTale = rng.nextInt(getSpawns().size());
-        Point xPoint = getSpawns().get(randomTale);
-        double x = xPoint.getX();
-        double y = xPoint.getY();
-        getSpawns().remove(randomTale);
-        player = new Player(100, (int) x, (int) y);
+        int cell = spawns.take(levelRng);
+        if (cell < 0) {
+            throw new IllegalStateException("No free tile to spawn the player in");
+        }
+        player = new Player(100, spawns.getX(cell), spawns.getY(cell));
         return player;
     }
 
+    /**
+     * Moves the player to a new tile, releasing the old tile and claiming the
+     * new one in the spawns index.
+     * @param x The new X position for the player
+     * @param y The new Y position for the player
+     */
+    private void movePlayerTo(int x, int y) {
+        changed.mark(player.getX(), player.getY());
+        changed.mark(x, y);
+        spawns.release(player.getX(), player.getY());
+        player.setPosition(x, y);
+        spawns.claim(x, y);
+    }
+
+    /**
+     * Removes the asteroid stored at the given index of the asteroids array,
+     * releasing its tile in the spawns index, and gives the player a point.
+     * @param i The index of the asteroid in the asteroids array
+     */
+    private void collectAsteroid(int i) {
+        spawns.release(asteroidStore.x[i], asteroidStore.y[i]);
+        asteroidStore.kill(i);
+        asteroids[i] = null;
+        points++;
+    }
+
+    /**
+     * Removes every asteroid standing in the given tile, giving the player a
+     * point for each of them.
+     * @param x The X co-ordinate of the tile
+     * @param y The Y co-ordinate of the tile
+     */
+    private void collectAsteroidsAt(int x, int y) {
+        int i;
+        while ((i = asteroidGrid.first(x, y)) >= 0) {
+            collectAsteroid(i);
+        }
+    }
+
+    /**
+     * Reduces the player's hull strength by 30 for every alien standing in
+     * the same tile as the player.
+     */
+    private void alienCollision() {
+        for (int i = alienGrid.first(player.getX(), player.getY()); i >= 0; i = alienGrid.next(i)) {
+            if (player.hullStrength > 30) {
+                player.hullStrength -= 30;
+            } 
+            else {
+                player.hullStrength = 0;
+            }
+        }
+    }
+
+    /**
+     * Hits every alien standing in the given tile with a blaster. Alien's
+     * health is decreased by 30, and aliens with less health than that are
+     * destroyed.
+     * @param x The X co-ordinate of the tile
+     * @param y The Y co-ordinate of the tile
+     * @return true if there was at least one alien in the tile, in which case
+     * the blaster disappears
+     */
+    private boolean blastAliensAt(int x, int y) {
+        int k = alienGrid.first(x, y);
+        boolean hit = k >= 0;
+        while (k >= 0) {
+            int next = alienGrid.next(k);
+            if (alienStore.hull[k] >= 30) {
+                alienStore.hull[k] -= 30;
+            } else {
+                spawns.release(x, y);
+                alienStore.kill(k);
+                aliens[k] = null;
+            }
+            k = next;
+        }
+        return hit;
+    }
+
     /**
      * Handles the movement of the player when attempting to move left in the
      * game. This method is called by the InputHandler class when the user has
@@ -367,39 +706,20 @@ public class GameEngine {
     public void movePlayerLeft() {
         int playerX = player.getX();
         int playerY = player.getY();
-        if ((playerX - 1) >= 0 && tiles[playerX - 1][playerY] != TileType.BLACK_HOLE) {
+        if (obstacles.canMove(ObstacleMap.Kind.BLACK_HOLES, Asteroid.Direction.LEFT, playerX, playerY)) {
             playerX--;
-            player.setPosition(playerX, playerY);
-            for (int i = 0; i < asteroids.length; i++) {
-                if ((asteroids[i] != null && asteroids[i].getX() == playerX) && (asteroids[i].getY() == playerY)) {
-                    asteroids[i] = null;
-                    points++;
-                }
-            }
-        } else if ((playerX - 1) == -1 && tiles[GRID_WIDTH - 1][playerY] != TileType.BLACK_HOLE) {
-            player.setPosition(GRID_WIDTH - 1, playerY);
-            for (int i = 0; i < asteroids.length; i++) {
-                if (asteroids[i] != null && asteroids[i].getX() == GRID_WIDTH - 1 && asteroids[i].getY() == playerY) {
-                    asteroids[i] = null;
-                    points++;
-                }
-            }
+            movePlayerTo(playerX, playerY);
+            collectAsteroidsAt(player.getX(), player.getY());
+        } else if ((playerX - 1) == -1 && tiles.get(width - 1, playerY) != TileType.BLACK_HOLE) {
+            movePlayerTo(width - 1, playerY);
+            collectAsteroidsAt(player.getX(), player.getY());
         } else {
             if (points > 0) {
                 points--;
             }
         }
-        //loop checks if there is any alien in the new location 
-        for (int i = 0; i < aliens.length; i++) {
-            if ((aliens[i] != null && aliens[i].getX() == playerX) && (aliens[i].getY() == playerY)) {
-                if (player.hullStrength > 30) {
-                    player.hullStrength -= 30;
-                } 
-                else {
-                    player.hullStrength = 0;
-                }
-            }
-        }
+        //checks if there is any alien in the new location
+        alienCollision();
     }
 
     /**
@@ -414,41 +734,20 @@ public class GameEngine {
     public void movePlayerRight() {
         int playerX = player.getX();
         int playerY = player.getY();
-        if ((playerX + 1) < GRID_WIDTH && tiles[playerX + 1][playerY] != TileType.BLACK_HOLE) {
+        if (obstacles.canMove(ObstacleMap.Kind.BLACK_HOLES, Asteroid.Direction.RIGHT, playerX, playerY)) {
             playerX++;
-            player.setPosition(playerX, playerY);
-            for (int i = 0; i < asteroids.length; i++) {
-                if (asteroids[i] != null && asteroids[i].getX() == playerX && asteroids[i].getY() == playerY) {
-                    asteroids[i] = null;
-                    points++;
-                }
-
-            }
-        } else if ((playerX + 1) == GRID_WIDTH && tiles[0][playerY] != TileType.BLACK_HOLE) {
-            player.setPosition(0, playerY);
-            for (int i = 0; i < asteroids.length; i++) {
-                if (asteroids[i] != null && asteroids[i].getX() == 0 && asteroids[i].getY() == playerY) {
-                    asteroids[i] = null;
-                    points++;
-                }
-
-            }
+            movePlayerTo(playerX, playerY);
+            collectAsteroidsAt(player.getX(), player.getY());
+        } else if ((playerX + 1) == width && tiles.get(0, playerY) != TileType.BLACK_HOLE) {
+            movePlayerTo(0, playerY);
+            collectAsteroidsAt(player.getX(), player.getY());
         } else {
             if (points > 0) {
                 points--;
             }
         }
-        //loop checks if there is any alien in the new location 
-        for (int i = 0; i < aliens.length; i++) {
-            if ((aliens[i] != null && aliens[i].getX() == playerX) && (aliens[i].getY() == playerY)) {
-                if (player.hullStrength > 30) {
-                    player.hullStrength -= 30;
-                } 
-                else {
-                    player.hullStrength = 0;
-                }
-            }
-        }
+        //checks if there is any alien in the new location
+        alienCollision();
 
     }
 
@@ -464,41 +763,20 @@ public class GameEngine {
     public void movePlayerUp() {
         int playerX = player.getX();
         int playerY = player.getY();
-        if ((playerY - 1) >= 0 && tiles[playerX][playerY - 1] != TileType.BLACK_HOLE) {
+        if (obstacles.canMove(ObstacleMap.Kind.BLACK_HOLES, Asteroid.Direction.UP, playerX, playerY)) {
             playerY--;
-            player.setPosition(playerX, playerY);
-            for (int i = 0; i < asteroids.length; i++) {
-                if (asteroids[i] != null && asteroids[i].getX() == playerX && asteroids[i].getY() == playerY) {
-                    asteroids[i] = null;
-                    points++;
-                }
-
-            }
-        } else if ((playerY - 1) == -1 && tiles[playerX][GRID_HEIGHT - 1] != TileType.BLACK_HOLE) {
-            player.setPosition(playerX, GRID_HEIGHT - 1);
-            for (int i = 0; i < asteroids.length; i++) {
-                if (asteroids[i] != null && asteroids[i].getX() == playerX && asteroids[i].getY() == GRID_HEIGHT - 1) {
-                    asteroids[i] = null;
-                    points++;
-                }
-
-            }
+            movePlayerTo(playerX, playerY);
+            collectAsteroidsAt(player.getX(), player.getY());
+        } else if ((playerY - 1) == -1 && tiles.get(playerX, height - 1) != TileType.BLACK_HOLE) {
+            movePlayerTo(playerX, height - 1);
+            collectAsteroidsAt(player.getX(), player.getY());
         } else {
             if (points > 0) {
                 points--;
             }
         }
-        //loop checks if there is any alien in the new location 
-        for (int i = 0; i < aliens.length; i++) {
-            if (aliens[i] != null && aliens[i].getX() == playerX && aliens[i].getY() == playerY) {
-                if (player.hullStrength > 30) {
-                    player.hullStrength -= 30;
-                } 
-                else {
-                    player.hullStrength = 0;
-                }
-            }
-        }
+        //checks if there is any alien in the new location
+        alienCollision();
 
     }
 
@@ -514,41 +792,20 @@ public class GameEngine {
     public void movePlayerDown() {
         int playerX = player.getX();
         int playerY = player.getY();
-        if ((playerY + 1) < GRID_HEIGHT && tiles[playerX][playerY + 1] != TileType.BLACK_HOLE) {
+        if (obstacles.canMove(ObstacleMap.Kind.BLACK_HOLES, Asteroid.Direction.DOWN, playerX, playerY)) {
             playerY++;
-            player.setPosition(playerX, playerY);
-            for (int i = 0; i < asteroids.length; i++) {
-                if (asteroids[i] != null && asteroids[i].getX() == playerX && asteroids[i].getY() == playerY) {
-                    asteroids[i] = null;
-                    points++;
-                }
-
-            }
-        } else if ((playerY + 1) == GRID_HEIGHT && tiles[playerX][0] != TileType.BLACK_HOLE) {
-            player.setPosition(playerX, 0);
-            for (int i = 0; i < asteroids.length; i++) {
-                if (asteroids[i] != null && asteroids[i].getX() == playerX && asteroids[i].getY() == 0) {
-                    asteroids[i] = null;
-                    points++;
-                }
-
-            }
+            movePlayerTo(playerX, playerY);
+            collectAsteroidsAt(player.getX(), player.getY());
+        } else if ((playerY + 1) == height && tiles.get(playerX, 0) != TileType.BLACK_HOLE) {
+            movePlayerTo(playerX, 0);
+            collectAsteroidsAt(player.getX(), player.getY());
         } else {
             if (points > 0) {
                 points--;
             }
         }
-        //loop checks if there is any alien in the new location 
-        for (int i = 0; i < aliens.length; i++) {
-            if ((aliens[i] != null && aliens[i].getX() == playerX) && (aliens[i].getY() == playerY)) {
-                if (player.hullStrength > 30) {
-                    player.hullStrength -= 30;
-                } 
-                else {
-                    player.hullStrength = 0;
-                }
-            }
-        }
+        //checks if there is any alien in the new location
+        alienCollision();
 
     }
 
@@ -564,75 +821,43 @@ public class GameEngine {
      * replaced by creating a new, randomly positioned asteroid in the same
      * index of the asteroids array that the destroyed asteroid used to occupy.
      */
-    private void moveAsteroids() {
-        for (int i = 0; i < asteroids.length; i++) {
-            if (asteroids[i] != null) {
-                int asteroidX = asteroids[i].getX();
-                int asteroidY = asteroids[i].getY();
-                Asteroid.Direction direction = asteroids[i].getMovementDirection();
-                int randomIndex = rng.nextInt(getSpawns().size());
-                Point point = getSpawns().get(randomIndex);
-                //switch statement for each direction
-                switch (direction) {
-                    case DOWN:
-                        if (asteroidY == GRID_HEIGHT - 1) {
-                            asteroids[i].setPosition((int) point.getX(), (int) point.getY());
-                            getSpawns().remove(randomIndex);
-                        } else {
-                            asteroids[i].setPosition(asteroidX, asteroidY + 1);
-                        }
-                        break;
-                    case UP:
-                        if (asteroidY == 0) {
-                            asteroids[i].setPosition((int) point.getX(), (int) point.getY());
-                            getSpawns().remove(randomIndex);
-                        } else {
-                            asteroids[i].setPosition(asteroidX, asteroidY - 1);
-                        }
-                        break;
-                    case RIGHT:
-                        if (asteroidX == GRID_WIDTH - 1) {
-                            asteroids[i].setPosition((int) point.getX(), (int) point.getY());
-                            getSpawns().remove(randomIndex);
-                        } else {
-                            asteroids[i].setPosition(asteroidX + 1, asteroidY);
-                        }
-                        break;
-                    case LEFT:
-                        if (asteroidX == 0) {
-                            asteroids[i].setPosition((int) point.getX(), (int) point.getY());
-                            getSpawns().remove(randomIndex);
-                        } else {
-                            asteroids[i].setPosition(asteroidX - 1, asteroidY);
-                        }
-                        break;
-                    case NONE:
-                        break;
-                }
-                asteroidX = asteroids[i].getX();
-                asteroidY = asteroids[i].getY();
-                //checks if new location is SPACE
-                if (tiles[asteroidX][asteroidY] == TileType.BLACK_HOLE || tiles[asteroidX][asteroidY] == TileType.PULSAR_ACTIVE || tiles[asteroidX][asteroidY] == TileType.PULSAR_INACTIVE) {
-                    asteroids[i].setPosition((int) point.getX(), (int) point.getY());
-                    getSpawns().remove(randomIndex);
+    void moveAsteroids() {
+        for (int i = asteroidStore.nextAlive(0); i >= 0; i = asteroidStore.nextAlive(i + 1)) {
+            int asteroidX = asteroidStore.x[i];
+            int asteroidY = asteroidStore.y[i];
+            Asteroid.Direction direction = Asteroid.DIRECTIONS[asteroidStore.direction[i]];
+            if (direction == Asteroid.Direction.NONE) {
+                continue;
+            }
+            spawns.release(asteroidX, asteroidY);
+            //checks if new location is on the map and is SPACE,
+            //if not the asteroid is moved to a free spawn location
+            if (obstacles.canMove(ObstacleMap.Kind.ALL_OBSTACLES, direction, asteroidX, asteroidY)) {
+                asteroidX += direction.getDX();
+                asteroidY += direction.getDY();
+                asteroidStore.setPosition(i, asteroidX, asteroidY);
+                spawns.claim(asteroidX, asteroidY);
+            } else {
+                int cell = spawns.take(respawnRng);
+                if (cell >= 0) {
+                    asteroidStore.setPosition(i, spawns.getX(cell), spawns.getY(cell));
+                } else {
+                    //no free tile to move to, so the asteroid stays where it is
+                    spawns.claim(asteroidX, asteroidY);
                 }
             }
-
         }
     }
 
     /**
-     * Moves all aliens on the current level. The method checks for non-null
-     * elements in the aliens array and calls the moveAlien method for each one
-     * that is not null.
+     * Moves all aliens on the current level. The method calls the moveAlien
+     * method for every alien that is alive in the alien store.
      * Method also calls aliensLasers() method if number of turns is even
      * and it turns off lasers if number of turns is odd.
      */
     private void moveAliens() {
-        for (Alien newAlien : aliens) {
-            if (newAlien != null) {
-                moveAlien(newAlien);
-            }
+        for (int i = alienStore.nextAlive(0); i >= 0; i = alienStore.nextAlive(i + 1)) {
+            moveAlien(i);
         }
         if (turnNumber % 2 == 0) {
             aliensLasers();
@@ -647,197 +872,179 @@ public class GameEngine {
      * attribute of the alien to reflect its new position 
      * (because each alien can move only in his row)
      *
-     * @param a The Alien that needs to be moved
+     * @param a The slot of the Alien that needs to be moved
      */
-    private void moveAlien(Alien a) {
+    private void moveAlien(int a) {
         int playerX = player.getX();
         int playerY = player.getY();
-        int alienX = a.getX();
-        int alienY = a.getY();
-        int counter = 0;
-        boolean randomDirection = rng.nextBoolean();
+        int alienX = alienStore.x[a];
+        int alienY = alienStore.y[a];
+        boolean randomDirection = alienRng.nextBoolean();
         
         //If statement moves alien to the right or to the left - it depends on 
         //the variable randomDirection
-        if (randomDirection == true && alienX < (GRID_WIDTH - 1) && tiles[alienX + 1][alienY] != TileType.BLACK_HOLE && tiles[alienX + 1][alienY] != TileType.PULSAR_ACTIVE && tiles[alienX + 1][alienY] != TileType.PULSAR_INACTIVE) {
+        if (randomDirection == true && obstacles.canMove(ObstacleMap.Kind.ALL_OBSTACLES, Asteroid.Direction.RIGHT, alienX, alienY)) {
             alienX++;
                 if (alienX != playerX || alienY != playerY) {
-                        a.setPosition(alienX, alienY);
+                        moveAlienTo(a, alienX, alienY);
                 }
         }
-        else if ((alienX > 0) && tiles[alienX - 1][alienY] != TileType.BLACK_HOLE && tiles[alienX - 1][alienY] != TileType.PULSAR_ACTIVE && tiles[alienX - 1][alienY] != TileType.PULSAR_INACTIVE) {
+        else if (obstacles.canMove(ObstacleMap.Kind.ALL_OBSTACLES, Asteroid.Direction.LEFT, alienX, alienY)) {
             alienX--;
                 if (alienX != playerX || alienY != playerY) {
-                        a.setPosition(alienX, alienY);
+                        moveAlienTo(a, alienX, alienY);
                 }
         }
 
-        //Loop iterates through asteroids array to check if any of them is in the same position
-        //as alien. If yes, alien's health is increased by 10 and asteroid 
-        //is moved to different position.
-        for (Asteroid asteroid : asteroids) {
-            if (asteroid != null && asteroid.getX() == alienX && asteroid.getY() == alienY) {
-                counter = 0;
-                while (counter < 1) {
-                    int randomIndex = rng.nextInt(getSpawns().size());
-                    Point point = getSpawns().get(randomIndex);
-                    int pointX = (int) point.getX();
-                    int pointY = (int) point.getY();
-                    if (pointX != playerX || pointY != playerY) {
-                        asteroid.setPosition(pointX, pointY);
-                        if (a.hullStrength < a.maxHull - 10) {
-                            a.hullStrength += 10;
-                        } else {
-                            a.hullStrength = a.maxHull;
-                        }
-                        counter++;
-                    }
-                }
+        //Loop takes every asteroid which is in the same position as alien.
+        //Alien's health is increased by 10 and the asteroid 
+        //is moved to different position, or destroyed if no tile is free.
+        int i;
+        while ((i = asteroidGrid.first(alienX, alienY)) >= 0) {
+            spawns.release(alienX, alienY);
+            int cell = spawns.take(respawnRng);
+            if (cell >= 0) {
+                asteroidStore.setPosition(i, spawns.getX(cell), spawns.getY(cell));
+            } else {
+                asteroidStore.kill(i);
+                asteroids[i] = null;
             }
+            aliens[a].changeHullStrength(10);
         }
     }
+
+    /**
+     * Moves an alien to a new tile, releasing the old tile and claiming the
+     * new one in the spawns index.
+     * @param a The slot of the Alien that needs to be moved
+     * @param x The new X position for the alien
+     * @param y The new Y position for the alien
+     */
+    private void moveAlienTo(int a, int x, int y) {
+        spawns.release(alienStore.x[a], alienStore.y[a]);
+        alienStore.setPosition(a, x, y);
+        spawns.claim(x, y);
+    }
     
     /**
-     * Method iterates through aliens array and for each alien it adds
-     * every tile to his right to lasers array until it is BLACK_HOLE.
-     * @return An array of Laser type objects
+     * Method iterates through the alien store and for each alien it adds
+     * a laser beam covering every tile to his right until the nearest
+     * BLACK_HOLE, which is found in the obstacle distance tables. If the player
+     * is in one of these tiles his health is decreased by 20.
+     * @return The LaserSpans object holding the beams of the aliens
      */
-    private Laser[] aliensLasers() {
-        int counter = 0;
-        lasers = new Laser[GRID_WIDTH * GRID_HEIGHT];
-        //loop makes every Laser object equal to null
-        for (int i = 0; i < lasers.length; i++) {
-            lasers[i] = null;            
-        }
-        for (int i = 0; i < aliens.length; i++) {
-            if (aliens[i] != null) {
-                int alienX = aliens[i].getX();
-                int alienY = aliens[i].getY();
-                for (int j = 1; j < 25 - alienX; j++) {
-                    if (tiles[alienX + j][alienY] != TileType.BLACK_HOLE) {
-                        Laser laser = new Laser(alienX + j, alienY);
-                        lasers[counter] = laser;
-                        counter++;
-                    }
-                    //If tile is equal to black hole, the loop is stopped.
-                    else {
-                        break;
-                    }
-                }
-            }
-        }
-        //loop checks if player is on the same tile with Laser object,
-        //if yes his health is decreased by 20.
-        for (int i = 0; i < lasers.length; i++) {
-            if (lasers[i] != null && lasers[i].getX() == player.getX() && lasers[i].getY() == player.getY()) {
+    LaserSpans aliensLasers() {
+        noLasers();
+        int playerX = player.getX();
+        int playerY = player.getY();
+        for (int i = alienStore.nextAlive(0); i >= 0; i = alienStore.nextAlive(i + 1)) {
+            int alienX = alienStore.x[i];
+            int alienY = alienStore.y[i];
+            int end = alienX + 1 + obstacles.distance(ObstacleMap.Kind.BLACK_HOLES, Asteroid.Direction.RIGHT, alienX, alienY);
+            lasers.add(alienY, alienX + 1, end);
+            changed.markSpan(alienY, alienX + 1, end);
+            //checks if player is on the same tile with the laser,
+            //if yes his health is decreased by 20.
+            if (playerY == alienY && playerX > alienX && playerX < end) {
                 if (player.hullStrength > 20) {
                     player.hullStrength -= 20;
                 } 
                 else {
                     player.hullStrength = 0;
                 }
-            }      
+            }
         }
         return lasers;
     }
     
     /**
-     * Method makes all Laser objects in array equal to null
-     * @return An array of Laser type objects
+     * Method removes all laser beams, marking the tiles they covered as
+     * changed.
+     * @return The empty LaserSpans object
      */
-    private Laser[] noLasers() {
-        for (int i = 0; i < lasers.length; i++) {
-                lasers[i] = null;              
-            }
+    private LaserSpans noLasers() {
+        for (int i = 0; i < lasers.getCount(); i++) {
+            changed.markSpan(lasers.getRow(i), lasers.getStart(i), lasers.getEnd(i));
+        }
+        lasers.clear();
         return lasers;
     }
 
     /**
      * Spawns asteroids in suitable locations in the current level. The method
-     * uses the spawns ArrayList to pick suitable positions to add asteroids,
-     * removing these positions from the spawns ArrayList as they are used
+     * uses the spawns index to pick suitable positions to add asteroids,
+     * claiming these positions in the index as they are used
      * to avoid multiple entities spawning in the same location. 
      * The method creates asteroids by repeatedly instantiating
      * the Asteroid class and setting the X and Y position for the asteroid
-     * using the Point object removed from the spawns ArrayList.
+     * using the tile picked from the spawns index.
      *
      * @return An array of Asteroid objects representing the asteroids for the
      * current level
      */
     private Asteroid[] spawnAsteroids() {
-        asteroids = new Asteroid[getSpawns().size()];
-        int counter = 0;
-        //loop makes every Asteroid object equal to null
+        asteroids = new Asteroid[spawns.size() / 10];
+        asteroidGrid = new OccupancyGrid(width, height, asteroids.length);
+        asteroidStore = new EntityStore(asteroids.length, asteroidGrid, changed);
+        //a tenth of the free tiles are taken, so a tile is always left
         for (int i = 0; i < asteroids.length; i++) {
-            asteroids[i] = null;
-        }
-        while (counter < asteroids.length / 10) {
-            int randomIndex = rng.nextInt(asteroids.length);
-            Point asteroidPoint = getSpawns().get(randomIndex);
-            if (asteroids[randomIndex] == null) {
-                getSpawns().remove(randomIndex);
-                Asteroid newAsteroid = new Asteroid((int) asteroidPoint.getX(), (int) asteroidPoint.getY());
-                asteroids[randomIndex] = newAsteroid;
-                counter++;
+            int cell = spawns.take(levelRng);
+            if (cell < 0) {
+                break;
             }
+            asteroidStore.spawn(i, spawns.getX(cell), spawns.getY(cell));
+            //random direction chosen uniformly from the first five values
+            asteroidStore.direction[i] = (byte) asteroidRng.nextInt(5);
+            asteroids[i] = new Asteroid(asteroidStore, i);
         }
         return asteroids;
     }
 
     /**
-     * Processes the tiles array to find inactive pulsars and change them to
-     * active pulsars. When a tile is found of the correct type, that tile is
-     * set to PULSAR_ACTIVE. When the map is drawn to the screen next the
-     * inactive pulsar will now be an active pulsar.
+     * Changes every inactive pulsar to an active pulsar. The tiles are stored
+     * as bitboards, so this is a bitwise operation on the pulsar bitboards
+     * instead of a search through every tile, and the damage field is
+     * rebuilt from the pulsar index. When the map is drawn to the screen next
+     * the inactive pulsar will now be an active pulsar.
      */
     private void activatePulsars() {
-        for (int i = 0; i < tiles.length; i++) {
-            for (int j = 0; j < tiles[i].length; j++) {
-                if (tiles[i][j] == TileType.PULSAR_INACTIVE) {
-                    tiles[i][j] = TileType.PULSAR_ACTIVE;
-                }
-            }
-        }
-
+        tiles.activatePulsars();
+        pulsars.updateDamage(tiles);
+        markPulsars();
     }
 
     /**
-     * Processes the tiles array to find active pulsars and change them to
-     * inactive pulsars. When a tile is found of the correct type, that tile is
-     * set to PULSAR_INACTIVE. When the map is drawn to the screen next the
-     * active pulsar will now be an inactive pulsar.
+     * Changes every active pulsar to an inactive pulsar. The tiles are stored
+     * as bitboards, so this is a bitwise operation on the pulsar bitboards
+     * instead of a search through every tile, and the damage field is
+     * cleared around the pulsars in the pulsar index. When the map is drawn
+     * to the screen next the active pulsar will now be an inactive pulsar.
      */
     private void deactivatePulsars() {
-        for (int i = 0; i < tiles.length; i++) {
-            for (int j = 0; j < tiles[i].length; j++) {
-                if (tiles[i][j] == TileType.PULSAR_ACTIVE) {
-                    tiles[i][j] = TileType.PULSAR_INACTIVE;
-                }
-            }
+        tiles.deactivatePulsars();
+        pulsars.updateDamage(tiles);
+        markPulsars();
+    }
+
+    /**
+     * Marks the tile of every pulsar as changed, after the pulsars have been
+     * toggled, which also tells the display that the tiles have changed.
+     */
+    private void markPulsars() {
+        for (int i = 0; i < pulsars.size(); i++) {
+            changed.markTile(pulsars.getX(i), pulsars.getY(i));
         }
     }
 
     /**
      * Damages the player if the player is in an active pulsar tile, or any of
      * the eight tiles adjacent to the active pulsar, when this method is
-     * called. The method uses the player's current x and y position and
-     * searches around the player looking for pulsar tiles. Any pulsar tiles
-     * found this way result in a reduce of player's strength by 5
+     * called. The number of active pulsar tiles around the player's current
+     * x and y position is read from the damage field of the pulsar index.
+     * Every pulsar tile found this way reduces the player's strength by 10
      */
     private void pulsarDamage() {
-        int playerX = player.getX();
-        int playerY = player.getY();
-        //loop checks player's position and every position around him
-        for (int i = playerX - 1; i <= playerX + 1; i++) {
-            for (int j = playerY - 1; j <= playerY + 1; j++) {
-                //if statement checks if position is on the board
-                if (i >= 0 && i < GRID_WIDTH && j >= 0 && j < GRID_HEIGHT) {
-                    if (tiles[i][j] == TileType.PULSAR_ACTIVE) {
-                        player.hullStrength -= 10;
-                    }
-                }
-            }
-        }
+        player.hullStrength -= 10 * pulsars.damageAt(player.getX(), player.getY());
     }
     
     /**
@@ -846,188 +1053,77 @@ public class GameEngine {
      * fireBlaster() method
      */
     public void blastersOn() {
-        int counter = 0;
         blastersControl = 1;
-        for (int i = 0; i < blasters.length; i++) {
-            if (blasters[i] == null) {
-                counter++;
-            }
-            if (counter == blasters.length) {
-                fireBlaster();
-            }
+        if (blasterStore.nextAlive(0) < 0) {
+            fireBlaster();
         }
     }
 
     /**
      * Fills blasters array with the Blaster objects, each one with different
-     * position and direction of movement.
+     * position and direction of movement. A blaster is only fired into a
+     * tile which is on the board and is not a black hole.
      * @return An array of updates blasters
      */
     public Blaster[] fireBlaster() {
         int playerX = player.getX();
         int playerY = player.getY();
-        if (playerX > 0 && tiles[playerX - 1][playerY] != TileType.BLACK_HOLE) {
-            blasters[0] = new Blaster(playerX - 1, playerY, Asteroid.Direction.LEFT);
-        }
-        if (playerX < GRID_WIDTH - 1 && tiles[playerX + 1][playerY] != TileType.BLACK_HOLE) {
-            blasters[1] = new Blaster(playerX + 1, playerY, Asteroid.Direction.RIGHT);
-        }
-        if (playerY < GRID_HEIGHT - 1 && tiles[playerX][playerY + 1] != TileType.BLACK_HOLE) {
-            blasters[2] = new Blaster(playerX, playerY + 1, Asteroid.Direction.DOWN);
-        }
-        if (playerY > 0 && tiles[playerX][playerY - 1] != TileType.BLACK_HOLE) {
-            blasters[3] = new Blaster(playerX, playerY - 1, Asteroid.Direction.UP);
-        }
-        if (playerX < GRID_WIDTH - 1 && playerY > 0 && tiles[playerX + 1][playerY - 1] != TileType.BLACK_HOLE) {
-            blasters[4] = new Blaster(playerX + 1, playerY - 1, Asteroid.Direction.UPRIGHT);
-        }
-        if (playerX > 0 && playerY > 0 && tiles[playerX - 1][playerY - 1] != TileType.BLACK_HOLE) {
-            blasters[5] = new Blaster(playerX - 1, playerY - 1, Asteroid.Direction.UPLEFT);
-        }
-        if (playerX < GRID_WIDTH - 1 && playerY < GRID_HEIGHT - 1 && tiles[playerX + 1][playerY + 1] != TileType.BLACK_HOLE) {
-            blasters[6] = new Blaster(playerX + 1, playerY + 1, Asteroid.Direction.DOWNRIGHT);
-        }
-        if (playerX > 0 && playerY > 0 && playerY < GRID_HEIGHT - 1 && tiles[playerX - 1][playerY + 1] != TileType.BLACK_HOLE) {
-            blasters[7] = new Blaster(playerX - 1, playerY + 1, Asteroid.Direction.DOWNLEFT);
-        }
-        for (int i = 0; i < blasters.length; i++) {
-            if (blasters[i] != null) {
-                int blasterX = blasters[i].getX();
-                int blasterY = blasters[i].getY();
+        for (int i = 0; i < BLASTER_DIRECTIONS.length; i++) {
+            if (obstacles.canMove(ObstacleMap.Kind.BLACK_HOLES, BLASTER_DIRECTIONS[i], playerX, playerY)) {
+                int blasterX = playerX + BLASTER_DIRECTIONS[i].getDX();
+                int blasterY = playerY + BLASTER_DIRECTIONS[i].getDY();
+                blasterStore.spawn(i, blasterX, blasterY);
+                blasterStore.direction[i] = (byte) BLASTER_DIRECTIONS[i].ordinal();
+                blasters[i] = blasterViews[i];
                 //if the blaster's position is the same as asteroid's position,
                 //players's points are increased by 1
-                for (int j = 0; j < asteroids.length; j++) {
-                    if (asteroids[j] != null) {
-                        if (asteroids[j].getX() == blasterX && asteroids[j].getY() == blasterY) {
-                            asteroids[j] = null;
-                            points++;
-                        }
-                    }
-                }
+                collectAsteroidsAt(blasterX, blasterY);
                 //if the blaster's position is the same as alien's position,
                 //aliens's health is decreased by 30
-                for (int k = 0; k < aliens.length; k++) {
-                    if (aliens[k] != null) {
-                        if (aliens[k].getX() == blasterX && aliens[k].getY() == blasterY) {
-                            if (aliens[k].hullStrength >= 30) {
-                                aliens[k].hullStrength -= 30;
-                            } else {
-                                aliens[k] = null;
-                            }
-                            blasters[i] = null;
-                        }
-                    }
+                if (blastAliensAt(blasterX, blasterY)) {
+                    removeBlaster(i);
                 }
             }
         }
         return blasters;
     }
 
+    /**
+     * Removes the blaster in the given slot of the blasters array.
+     * @param i The slot of the blaster
+     */
+    private void removeBlaster(int i) {
+        blasterStore.kill(i);
+        blasters[i] = null;
+    }
+
     /**
      * Moves each blaster depending on its direction of movement, only if new position is on the board
-     * and is not occupied by BLACK_HOLE. Then checks if new location is occupied by asteroid. If yes, player's
-     * points are increased by one, and asteroid is set to null.
+     * and is not occupied by BLACK_HOLE, otherwise the blaster disappears. Then checks if new location
+     * is occupied by asteroid. If yes, player's points are increased by one, and asteroid is set to null.
      * Checks also if new location is occupied by alien. If yes, alien's health is 
      * decreased by 30.
      * 
      */
-    private void moveBlasters() {
-        int blasterX;
-        int blasterY;
-        for (int i = 0; i < blasters.length; i++) {
-            if (blasters[i] != null) {
-                blasterX = blasters[i].getX();
-                blasterY = blasters[i].getY();
-                //set new position for blaster depending on the direction of movement
-                if (blasters[i].getBlasterDirection() == Asteroid.Direction.LEFT) {
-                    if (blasterX > 0 && tiles[blasterX - 1][blasterY] != TileType.BLACK_HOLE) {
-                        blasters[i].setPosition(blasterX - 1, blasterY);
-                    } else {
-                        blasters[i] = null;
-                    }
-                } else if (blasters[i].getBlasterDirection() == Asteroid.Direction.RIGHT) {
-                    if (blasterX < GRID_WIDTH - 1 && tiles[blasterX + 1][blasterY] != TileType.BLACK_HOLE) {
-                        blasters[i].setPosition(blasterX + 1, blasterY);
-                    } else {
-                        blasters[i] = null;
-                    }
-                } 
-                else if (blasters[i].getBlasterDirection() == Asteroid.Direction.UP) {
-                    if (blasterY > 0 && tiles[blasterX][blasterY - 1] != TileType.BLACK_HOLE) {
-                        blasters[i].setPosition(blasterX, blasterY - 1);
-                    } else {
-                        blasters[i] = null;
-                    }
-                } 
-                else if (blasters[i].getBlasterDirection() == Asteroid.Direction.DOWN) {
-                    if (blasterY < GRID_HEIGHT - 1 && tiles[blasterX][blasterY + 1] != TileType.BLACK_HOLE) {
-                        blasters[i].setPosition(blasterX, blasterY + 1);
-                    } 
-                    else {
-                        blasters[i] = null;
-                    }
-                }
-                else if (blasters[i].getBlasterDirection() == Asteroid.Direction.UPRIGHT) {
-                    if (blasterX < GRID_WIDTH - 1 && blasterY > 0 && tiles[blasterX + 1][blasterY - 1] != TileType.BLACK_HOLE) {
-                        blasters[i].setPosition(blasterX + 1, blasterY - 1);
-                    }
-                    else {
-                        blasters[i] = null;
-                    }
-                }
-                else if (blasters[i].getBlasterDirection() == Asteroid.Direction.UPLEFT) {
-                    if (blasterX > 0 && blasterY > 0 && tiles[blasterX - 1][blasterY - 1] != TileType.BLACK_HOLE) {
-                        blasters[i].setPosition(blasterX - 1, blasterY - 1);
-                    }
-                    else {
-                        blasters[i] = null;
-                    }
-                }
-                else if (blasters[i].getBlasterDirection() == Asteroid.Direction.DOWNRIGHT) {
-                    if (blasterX < GRID_WIDTH - 1 && blasterY < GRID_HEIGHT - 1 && tiles[blasterX + 1][blasterY + 1] != TileType.BLACK_HOLE) {
-                        blasters[i].setPosition(blasterX + 1, blasterY + 1);
-                    }
-                    else {
-                        blasters[i] = null;
-                    }
-                }
-                else if (blasters[i].getBlasterDirection() == Asteroid.Direction.DOWNLEFT) {
-                    if (blasterX > 0 && blasterY > 0 && blasterY < GRID_HEIGHT - 1 && tiles[blasterX - 1][blasterY + 1] != TileType.BLACK_HOLE) {
-                        blasters[i].setPosition(blasterX - 1, blasterY + 1);
-                    }
-                    else {
-                        blasters[i] = null;
-                    }
-                }
-                if (blasters[i] != null) {
-                    blasterX = blasters[i].getX();
-                    blasterY = blasters[i].getY();
-                    //checks if there is any asteroid in the new location
-                    //if yes, the asteroid disappears (is set to null)
-                    //and player's points are increased by 1
-                    for (int j = 0; j < asteroids.length; j++) {
-                        if (asteroids[j] != null) {
-                            if (asteroids[j].getX() == blasterX && asteroids[j].getY() == blasterY) {
-                                asteroids[j] = null;
-                                points++;
-                            }
-                        }
-                    }
-                    //checks if there is any alien in the new location
-                    //if yes, it's life is decreased by 30, and the blaster disappears
-                    for (int k = 0; k < aliens.length; k++) {
-                        if (aliens[k] != null) {
-                            if (aliens[k].getX() == blasterX && aliens[k].getY() == blasterY) {
-                                if (aliens[k].hullStrength >= 30) {
-                                    aliens[k].hullStrength -= 30;
-                                } else {
-                                    aliens[k] = null;
-                                }
-                                blasters[i] = null;
-                            }
-                        }
-                    }
-                }
+    void moveBlasters() {
+        for (int i = blasterStore.nextAlive(0); i >= 0; i = blasterStore.nextAlive(i + 1)) {
+            Asteroid.Direction direction = Asteroid.DIRECTIONS[blasterStore.direction[i]];
+            if (!obstacles.canMove(ObstacleMap.Kind.BLACK_HOLES, direction, blasterStore.x[i], blasterStore.y[i])) {
+                removeBlaster(i);
+                continue;
+            }
+            //set new position for blaster depending on the direction of movement
+            int blasterX = blasterStore.x[i] + direction.getDX();
+            int blasterY = blasterStore.y[i] + direction.getDY();
+            blasterStore.setPosition(i, blasterX, blasterY);
+            //checks if there is any asteroid in the new location
+            //if yes, the asteroid disappears (is set to null)
+            //and player's points are increased by 1
+            collectAsteroidsAt(blasterX, blasterY);
+            //checks if there is any alien in the new location
+            //if yes, it's life is decreased by 30, and the blaster disappears
+            if (blastAliensAt(blasterX, blasterY)) {
+                removeBlaster(i);
             }
         }
     }
@@ -1035,43 +1131,84 @@ public class GameEngine {
         /**
          * Called in response to the player collecting enough points win the
          * current level. The method increases the valued of cleared by one,
-         * increases BLACK_HOLE_CHANCE and PULSAR_CHANCE by 0,01,
+         * which makes the configuration give the chances of black holes and
+         * pulsars of the next level,
          * resets the value of points and the value of blastersCounter to zero,
          * generates a new level by calling the generateLevel method, 
-         * fills lasers array with null values,
-         * fills blasters array with null values, fills the spawns ArrayList with suitable
-         * spawn locations, then spawns aliens and asteroids. Finally it places
-         * the player in the new level by calling the placePlayer() method. 
+         * removes all laser beams,
+         * fills blasters array with null values, rebuilds the spawns index with suitable
+         * spawn locations, then spawns asteroids, places the player in the new
+         * level by calling the placePlayer() method and finally spawns aliens,
+         * so the player always gets a tile even if the aliens take the rest.
          */
     private void newLevel() {
         cleared++;
-        BLACK_HOLE_CHANCE += 0.01;
-        PULSAR_CHANCE += 0.01;
         points = 0;
         blastersCounter = 0;
         generateLevel();
         getSpawns();
         spawnAsteroids();
+        placePlayer();
         spawnAliens();
         createBlastersList();
         noLasers();
-        placePlayer(); 
-
     }
 
     /**
      * Places the player in a level by choosing a spawn location from the spawns
-     * ArrayList, removing the spawn position as it is used. The method sets the
+     * index, claiming the spawn position as it is used. The method sets the
      * players position in the level by calling its setPosition method with the
-     * x and y values of the Point taken from the spawns ArrayList.
+     * x and y values of the tile taken from the spawns index.
      */
     private void placePlayer() {
-        int randomTale = rng.nextInt(getSpawns().size());
-        Point xPoint = getSpawns().get(randomTale);
-        int x = (int) xPoint.getX();
-        int y = (int) xPoint.getY();
-        getSpawns().remove(randomTale);
-        player.setPosition(x, y);
+        int cell = spawns.take(levelRng);
+        if (cell < 0) {
+            throw new IllegalStateException("No free tile to place the player in");
+        }
+        player.setPosition(spawns.getX(cell), spawns.getY(cell));
+    }
+
+    /**
+     * Performs the given action of the player and then a single turn of the
+     * game, the same as pressing the matching key. Used by anything that
+     * plays the game without a keyboard, e.g. simulations. If the game is
+     * recorded, the action is added to the replay log.
+     * @param action The action of the player in this turn
+     * @return true if the game is still running after this turn, false if
+     * the game is over
+     */
+    public boolean step(PlayerAction action) {
+        return step(action, true);
+    }
+
+    /**
+     * Performs the given action of the player and then a single turn of the
+     * game, like step(action), but can leave the display as it is. The cells
+     * changed by turns that are not drawn are remembered, so several turns
+     * can be performed in a batch and only the state after the last one
+     * drawn, by drawing that turn or calling render.
+     * @param action The action of the player in this turn
+     * @param draw true to draw the game after the turn, false to leave it
+     * for a later turn or render
+     * @return true if the game is still running after this turn, false if
+     * the game is over
+     */
+    public boolean step(PlayerAction action, boolean draw) {
+        if (gameOver) {
+            return false;
+        }
+        if (recorder != null) {
+            recorder.record(action);
+        }
+        switch (action) {
+            case LEFT: movePlayerLeft(); break;
+            case RIGHT: movePlayerRight(); break;
+            case UP: movePlayerUp(); break;
+            case DOWN: movePlayerDown(); break;
+            case FIRE: blastersOn(); break;
+            default: break;
+        }
+        return doTurn(draw);
     }
 
     /**
@@ -1079,32 +1216,47 @@ public class GameEngine {
      * keyboard. This method activates or deactivates pulsars periodically by
      * using the turn attribute, moves blasters if they exist,
      * moves any aliens and asteroids and then checks
-     * if the player is dead, exiting the game or resetting it. It checks if the
+     * if the player is dead, ending the game if it is. It checks if the
      * player has collected enough asteroids to win the level and calls the
-     * method if it does. Finally it requests the GUI to redraw the game level
-     * by passing it the tiles, player, aliens and asteroids for the current
-     * level.
+     * method if it does. Finally it requests the display to redraw the game
+     * level by passing it the tiles, player, aliens and asteroids for the
+     * current level. When the game ends the display is told by calling its
+     * gameOver method, and no more turns are performed.
+     *
+     * @return true if the game is still running after this turn, false if
+     * the game is over
+     */
+    public boolean doTurn() {
+        return doTurn(true);
+    }
+
+    /**
+     * Performs a single turn of the game, drawing it only if asked to.
+     * @param draw true to draw the game after the turn
+     * @return true if the game is still running after this turn, false if
+     * the game is over
      */
-    public void doTurn() {
+    private boolean doTurn(boolean draw) {
+        if (gameOver) {
+            return false;
+        }
+        long t = startTiming();
         if (turnNumber % 20 == 0) {
             activatePulsars();
         }
         if (turnNumber % 20 == 5) {
             deactivatePulsars();
         }
+        t = lap(TurnPhase.PULSARS, t);
         if (turnNumber % 10 == 5) {
             moveAsteroids();
         }
+        t = lap(TurnPhase.ASTEROIDS, t);
         moveAliens();
+        t = lap(TurnPhase.ALIENS, t);
         if (blastersCounter < 5 && blastersControl >= 2) {
             moveBlasters();
-            int counter = 0;
-            for (int i = 0; i < blasters.length; i++) {
-                if (blasters[i] != null) {
-                    counter++;
-                }
-            }
-            if (counter > 0) {
+            if (blasterStore.nextAlive(0) >= 0) {
                 blastersCounter++;
             }
         } 
@@ -1114,38 +1266,422 @@ public class GameEngine {
             blastersCounter = 0;
             blastersControl = 0;
         }
+        t = lap(TurnPhase.BLASTERS, t);
         if (player.getHullStrength() < 1) {
-            System.exit(0);
+            endGame(false);
+            finishTiming();
+            return false;
         }
         pulsarDamage();
-        if (cleared < 10 && points >= 10) {
+        t = lap(TurnPhase.DAMAGE, t);
+        if (cleared < config.getLevelsToWin() && points >= config.getPointsPerLevel()) {
             newLevel();
         }
-        if (cleared >= 10) {
-            System.exit(0);
+        t = lap(TurnPhase.LEVEL, t);
+        if (cleared >= config.getLevelsToWin()) {
+            endGame(true);
+            finishTiming();
+            return false;
         }
-        gui.updateDisplay(tiles, player, aliens, asteroids, blasters, lasers);
+        //the player's health bar can change in any turn
+        changed.mark(player.getX(), player.getY());
         turnNumber++;
         blastersControl++;
-        System.out.println("points" + points);
-        System.out.println("level" + cleared);
+        if (draw) {
+            render();
+            lap(TurnPhase.DISPLAY, t);
+        }
+        finishTiming();
+        return true;
     }
 
     /**
-     * Starts a game. This method generates a level, finds spawn positions in
+     * Starts timing a turn, if turns are timed.
+     * @return the time the turn started, from System.nanoTime, or 0 if turns
+     * are not timed
+     */
+    private long startTiming() {
+        if (timings == null) {
+            return 0;
+        }
+        Arrays.fill(phaseNanos, -1);
+        turnStart = System.nanoTime();
+        return turnStart;
+    }
+
+    /**
+     * Ends the timing of a phase of the turn, if turns are timed.
+     * @param phase The phase that has been performed
+     * @param since The time the phase started, returned by startTiming or
+     * the lap of the previous phase
+     * @return the time the phase ended, from System.nanoTime, or 0 if turns
+     * are not timed
+     */
+    private long lap(TurnPhase phase, long since) {
+        if (timings == null) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        phaseNanos[phase.ordinal()] = now - since;
+        return now;
+    }
+
+    /**
+     * Ends the timing of the turn and records the times of its phases, if
+     * turns are timed.
+     */
+    private void finishTiming() {
+        if (timings == null) {
+            return;
+        }
+        phaseNanos[TurnPhase.TURN.ordinal()] = System.nanoTime() - turnStart;
+        timings.recordTurn(phaseNanos);
+    }
+
+    /**
+     * Requests the display to redraw the cells changed since it was last
+     * drawn and to update the score. Used after turns performed with step
+     * without drawing them.
+     */
+    public void render() {
+        display.updateDisplay(tiles.toArray(), player, aliens, asteroids, blasters, lasers, changed);
+        changed.clear();
+        display.updateScore(points, cleared);
+    }
+
+    /**
+     * Ends the game, closes the replay log if the game is recorded and tells
+     * the display about the result.
+     * @param won true if the player cleared every level, false if the
+     * player's ship was destroyed
+     */
+    private void endGame(boolean won) {
+        gameOver = true;
+        if (recorder != null) {
+            recorder.close();
+        }
+        display.gameOver(won);
+    }
+
+    /**
+     * Gets the number of bytes written by writeSnapshot for the current
+     * state of the game.
+     * @return the size of a snapshot in bytes
+     */
+    public int snapshotSize() {
+        return 21 + 4 * 8 + 5 * 4 + 1 + 12 //header, random streams, counters, player
+                + (width * height + 3) / 4
+                + spawns.snapshotSize()
+                + 4 + alienStore.snapshotSize() + alienGrid.snapshotSize()
+                + 4 + asteroidStore.snapshotSize() + asteroidGrid.snapshotSize()
+                + blasterStore.snapshotSize()
+                + 4 + 12 * lasers.getCount();
+    }
+
+    /**
+     * Takes a snapshot of the whole state of the game, which restore can
+     * return this or another engine of the same size to, e.g. to save a game,
+     * to undo turns or to try out moves.
+     * @return the snapshot
+     */
+    public byte[] snapshot() {
+        ByteBuffer out = ByteBuffer.allocate(snapshotSize());
+        writeSnapshot(out);
+        return out.array();
+    }
+
+    /**
+     * Writes a snapshot of the whole state of the game to a buffer, so the
+     * same buffer can be reused for many snapshots. The state is written as
+     * packed primitive values: the seed and the states of the random number
+     * streams, the counters of the game, the player, the tiles with two bits
+     * for every tile, the spawns index and the entity stores and grids with
+     * the order of their slots, and the laser beams. The obstacle tables and
+     * the pulsar index are not written, as they are rebuilt from the tiles.
+     * @param out The buffer to write to, with at least snapshotSize() bytes
+     * remaining
+     */
+    public void writeSnapshot(ByteBuffer out) {
+        out.putInt(SNAPSHOT_MAGIC).put(SNAPSHOT_VERSION).putInt(width).putInt(height).putLong(seed);
+        out.putLong(levelRng.getState()).putLong(asteroidRng.getState())
+                .putLong(alienRng.getState()).putLong(respawnRng.getState());
+        out.putInt(cleared).putInt(blastersCounter).putInt(blastersControl).putInt(points).putInt(turnNumber);
+        out.put((byte) (gameOver ? 1 : 0));
+        out.putInt(player.getX()).putInt(player.getY()).putInt(player.hullStrength);
+        TileType[][] level = tiles.toArray();
+        int packed = 0;
+        int n = 0;
+        for (int i = 0; i < width; i++) {
+            for (int j = 0; j < height; j++) {
+                packed |= level[i][j].ordinal() << (2 * (n & 3));
+                if ((++n & 3) == 0) {
+                    out.put((byte) packed);
+                    packed = 0;
+                }
+            }
+        }
+        if ((n & 3) != 0) {
+            out.put((byte) packed);
+        }
+        spawns.writeTo(out);
+        out.putInt(aliens.length);
+        alienStore.writeTo(out);
+        alienGrid.writeTo(out);
+        out.putInt(asteroids.length);
+        asteroidStore.writeTo(out);
+        asteroidGrid.writeTo(out);
+        blasterStore.writeTo(out);
+        out.putInt(lasers.getCount());
+        for (int i = 0; i < lasers.getCount(); i++) {
+            out.putInt(lasers.getRow(i)).putInt(lasers.getStart(i)).putInt(lasers.getEnd(i));
+        }
+    }
+
+    /**
+     * Returns the game to the state of a snapshot, which was taken from
+     * this engine or another engine of the same size. Playing on from the
+     * restored state gives the same turns as playing on from the state the
+     * snapshot was taken in. The whole level is then redrawn by the display.
+     * A replay log being recorded does not know about the restore.
+     * @param data The snapshot
+     * @throws IllegalArgumentException if the data is not a snapshot of an
+     * engine of the same size
+     */
+    public void restore(byte[] data) {
+        restore(ByteBuffer.wrap(data));
+    }
+
+    /**
+     * Returns the game to the state of a snapshot read from a buffer. If the
+     * buffer ends before the whole snapshot was read, the game is left in a
+     * broken state and a snapshot must be restored before playing on.
+     * @param in The buffer holding the snapshot written by writeSnapshot
+     * @throws IllegalArgumentException if the buffer does not hold a
+     * snapshot of an engine of the same size
+     */
+    public void restore(ByteBuffer in) {
+        if (in.getInt() != SNAPSHOT_MAGIC || in.get() != SNAPSHOT_VERSION) {
+            throw new IllegalArgumentException("Not a snapshot of a game engine");
+        }
+        int snapshotWidth = in.getInt();
+        int snapshotHeight = in.getInt();
+        if (snapshotWidth != width || snapshotHeight != height) {
+            throw new IllegalArgumentException("Snapshot of a " + snapshotWidth + "x" + snapshotHeight
+                    + " level cannot be restored into a " + width + "x" + height + " level");
+        }
+        seed = in.getLong();
+        levelRng.setState(in.getLong());
+        asteroidRng.setState(in.getLong());
+        alienRng.setState(in.getLong());
+        respawnRng.setState(in.getLong());
+        cleared = in.getInt();
+        blastersCounter = in.getInt();
+        blastersControl = in.getInt();
+        points = in.getInt();
+        turnNumber = in.getInt();
+        gameOver = in.get() != 0;
+        int playerX = in.getInt();
+        int playerY = in.getInt();
+        player = new Player(100, playerX, playerY);
+        player.hullStrength = in.getInt();
+        //the tiles, then everything that is rebuilt from them; the obstacle
+        //tables and pulsar index are only rebuilt if the snapshot has black
+        //holes or pulsars in other places, e.g. not when undoing turns
+        TileType[] types = TileType.values();
+        TileType[][] before = tiles.toArray();
+        boolean layoutChanged = false;
+        int packed = 0;
+        int n = 0;
+        for (int i = 0; i < width; i++) {
+            for (int j = 0; j < height; j++) {
+                if ((n & 3) == 0) {
+                    packed = in.get();
+                }
+                TileType type = types[(packed >>> (2 * (n & 3))) & 3];
+                TileType old = before[i][j];
+                if (type != old) {
+                    tiles.set(i, j, type);
+                    layoutChanged |= type == TileType.SPACE || type == TileType.BLACK_HOLE
+                            || old == TileType.SPACE || old == TileType.BLACK_HOLE;
+                }
+                n++;
+            }
+        }
+        TileType[][] level = tiles.toArray();
+        if (layoutChanged) {
+            pulsars.reset(width, height);
+            for (int i = 0; i < width; i++) {
+                for (int j = 0; j < height; j++) {
+                    if (level[i][j] == TileType.PULSAR_ACTIVE || level[i][j] == TileType.PULSAR_INACTIVE) {
+                        pulsars.add(i, j);
+                    }
+                }
+            }
+            obstacles.rebuild(level);
+        }
+        pulsars.updateDamage(tiles);
+        spawns.readFrom(in, level);
+        aliens = new Alien[in.getInt()];
+        alienStore.readFrom(in);
+        alienGrid.readFrom(in);
+        for (int i = alienStore.nextAlive(0); i >= 0; i = alienStore.nextAlive(i + 1)) {
+            aliens[i] = new Alien(50, alienStore, i);
+        }
+        asteroids = new Asteroid[in.getInt()];
+        asteroidGrid = new OccupancyGrid(width, height, asteroids.length);
+        asteroidStore = new EntityStore(asteroids.length, asteroidGrid, changed);
+        asteroidStore.readFrom(in);
+        asteroidGrid.readFrom(in);
+        for (int i = asteroidStore.nextAlive(0); i >= 0; i = asteroidStore.nextAlive(i + 1)) {
+            asteroids[i] = new Asteroid(asteroidStore, i);
+        }
+        blasterStore.readFrom(in);
+        for (int i = 0; i < blasters.length; i++) {
+            blasters[i] = blasterStore.isAlive(i) ? blasterViews[i] : null;
+        }
+        lasers.clear();
+        for (int i = in.getInt(); i > 0; i--) {
+            lasers.add(in.getInt(), in.getInt(), in.getInt());
+        }
+        changed.markAll();
+        display.updateDisplay(level, player, aliens, asteroids, blasters, lasers, changed);
+        changed.clear();
+    }
+
+    /**
+     * Checks if the game is over.
+     * @return true if the player's ship was destroyed or every level was
+     * cleared
+     */
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    /**
+     * Gets the number of points the player has gained this level.
+     * @return the points of the player in the current level
+     */
+    public int getPoints() {
+        return points;
+    }
+
+    /**
+     * Gets the number of levels cleared by the player in this game.
+     * @return the number of cleared levels
+     */
+    public int getLevelsCleared() {
+        return cleared;
+    }
+
+    /**
+     * Gets the number of the current turn.
+     * @return the number of the turn that will be performed next
+     */
+    public int getTurnNumber() {
+        return turnNumber;
+    }
+
+    /**
+     * Records the actions of the player in every following turn to a replay
+     * log, which is closed when the game ends. Only actions performed with
+     * the step method are recorded.
+     * @param recorder The recorder writing the log, or null to stop recording
+     */
+    public void setRecorder(ReplayRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    /**
+     * Times the phases of every following turn, recording them in the given
+     * timings. Several engines can share the same timings.
+     * @param timings The timings to record to, or null to stop timing turns
+     */
+    public void setTimings(TurnTimings timings) {
+        this.timings = timings;
+    }
+
+    /**
+     * Gets the timings the phases of the turns are recorded to.
+     * @return the timings, or null if turns are not timed
+     */
+    public TurnTimings getTimings() {
+        return timings;
+    }
+
+    /**
+     * Gets the seed the random number streams of this game were split from.
+     * @return the seed of this engine
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Gets the difficulty settings of this game.
+     * @return the configuration of this engine
+     */
+    public GameConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Gets the player of this game.
+     * @return the current Player object
+     */
+    public Player getPlayer() {
+        return player;
+    }
+
+    /**
+     * Gets the width of the level of this engine.
+     * @return the width of the level, measured in tiles
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the height of the level of this engine.
+     * @return the height of the level, measured in tiles
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets the obstacle distance tables of the current level, which can be
+     * queried in bulk by AI and simulation code.
+     * @return the ObstacleMap of the current level
+     */
+    public ObstacleMap getObstacles() {
+        return obstacles;
+    }
+
+    /**
+     * Starts a game. This method resets the progress of the player and the
+     * turn counters, so a new game can be started after one is over. It then
+     * generates a level, finds spawn positions in
      * the level, spawns aliens, asteroids and the player and then requests the
-     * GUI to update the level on screen using the information on tiles, player,
-     * asteroids and aliens.
+     * display to update the level on screen using the information on tiles,
+     * player, asteroids and aliens.
      */
     public void startGame() {
-        tiles = generateLevel();
+        gameOver = false;
+        cleared = 0;
+        points = 0;
+        turnNumber = 1;
+        blastersCounter = 0;
+        blastersControl = 0;
+        generateLevel();
         spawns = getSpawns();
         asteroids = spawnAsteroids();
         player = spawnPlayer();
         aliens = spawnAliens();
         blasters = createBlastersList();
+        createLasersList();
         lasers = aliensLasers();
-        gui.updateDisplay(tiles, player, aliens, asteroids, blasters, lasers);
+        display.updateDisplay(tiles.toArray(), player, aliens, asteroids, blasters, lasers, changed);
+        changed.clear();
     }
 }
 
@@ -1,25 +1,29 @@
 package uk.ac.bradford.spacegame;
 
 import java.awt.Color;
+import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
-import java.awt.geom.Rectangle2D;
+import java.awt.GraphicsConfiguration;
 import java.awt.image.*;
-import java.io.File;
-import java.io.IOException;
-import javax.imageio.ImageIO;
+import java.util.Arrays;
 import javax.swing.JFrame;
 import javax.swing.JPanel;
-import java.util.Random;
+import javax.swing.SwingUtilities;
 import uk.ac.bradford.spacegame.GameEngine.TileType;
 
 /**
  * The GameGUI class is responsible for rendering graphics to the screen to display
  * the game grid, players, asteroids and aliens. The GameGUI class passes keyboard
- * events to a registered InputHandler to be handled.
+ * events to a registered InputHandler to be handled. Levels larger than the
+ * window are drawn through a viewport that follows the player. The engine can
+ * update the display from its own thread: every update is copied into an
+ * immutable FrameSnapshot, which is handed over to the event dispatch thread
+ * and painted there. The cost of painting is measured by a PaintMetrics,
+ * which can be shown over the game with setOverlay.
  * @author prtrundl & klaudiabzdyk
  */
-public class GameGUI extends JFrame {
+public class GameGUI extends JFrame implements GameDisplay {
     
     /**
      * The three final int attributes below set the size of some graphical elements,
@@ -39,10 +43,21 @@ public class GameGUI extends JFrame {
     
     /**
      * Constructor for the GameGUI class. It calls the initGUI method to generate the
-     * required objects for display.
+     * required objects for display, with a viewport showing GRID_WIDTH by
+     * GRID_HEIGHT tiles, the default size of a level.
      */
     public GameGUI() {
-        initGUI();
+        this(GameEngine.GRID_WIDTH, GameEngine.GRID_HEIGHT);
+    }
+
+    /**
+     * Constructor for the GameGUI class with a viewport of the given size. It
+     * calls the initGUI method to generate the required objects for display.
+     * @param columns The width of the viewport, measured in tiles
+     * @param rows The height of the viewport, measured in tiles
+     */
+    public GameGUI(int columns, int rows) {
+        initGUI(columns, rows);
     }
     
     /**
@@ -53,15 +68,35 @@ public class GameGUI extends JFrame {
     public void registerKeyHandler(InputHandler i) {
         addKeyListener(i);
     }
+
+    /**
+     * Gets the metrics of the painting of the game.
+     * @return the paint metrics of the canvas
+     */
+    public PaintMetrics getPaintMetrics() {
+        return canvas.metrics;
+    }
+
+    /**
+     * Shows or hides the paint metrics over the top left corner of the game.
+     * Must be called on the event dispatch thread.
+     * @param overlay true to show the metrics
+     */
+    public void setOverlay(boolean overlay) {
+        canvas.overlay = overlay;
+        canvas.repaint();
+    }
     
     /**
      * Method to create and initialise components for displaying elements of the
-     * game on the screen.
+     * game on the screen. The frame is sized to fit the viewport.
+     * @param columns The width of the viewport, measured in tiles
+     * @param rows The height of the viewport, measured in tiles
      */
-    private void initGUI() {
-        add(canvas = new Canvas());     //adds canvas to this frame
+    private void initGUI(int columns, int rows) {
+        add(canvas = new Canvas(columns, rows));     //adds canvas to this frame
         setTitle("spAce");
-        setSize(816, 615);
+        pack();
         setLocationRelativeTo(null);        //sets position of frame on screen
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
     }
@@ -85,199 +120,296 @@ public class GameGUI extends JFrame {
      * @param blasters An array of Blaster objects that is processed to draw 
      * the blasters on the map. null elements in the array, or a null array are both
      * permitted, and any null arrays or null elements in the array will be sipped.
-     * @param lasers An array of Laser objects that is processed to draw the lasers 
-     * on the map. null elements in the array, or a null array are both permitted,
-     * and any null arrays or null elements in the array will be skipped.
+     * @param lasers A LaserSpans object holding the laser beams of the aliens,
+     * each drawn as a row of laser tiles. null can be passed for this argument,
+     * in which case no lasers will be drawn.
+     * @param changed The tiles that changed since the last update, which are
+     * the only ones repainted. null can be passed for this argument, in which
+     * case the whole level is repainted.
+     */
+    @Override
+    public void updateDisplay(TileType[][] tiles, Player player, Alien[] aliens, Asteroid[] asteroids, Blaster[] blasters, LaserSpans lasers, DirtyCells changed) {
+        FrameSnapshot snapshot = new FrameSnapshot(tiles, player, aliens, asteroids, blasters, lasers,
+                canvas.columns, canvas.rows, changed == null || changed.isTilesChanged());
+        int[] dirty = null;
+        if (changed != null && !changed.isAll()) {
+            //only the changed tiles in view are kept, as X and Y pairs
+            dirty = new int[changed.size() * 2];
+            int k = 0;
+            for (int i = 0; i < changed.size(); i++) {
+                if (snapshot.inView(changed.getX(i), changed.getY(i))) {
+                    dirty[k++] = changed.getX(i);
+                    dirty[k++] = changed.getY(i);
+                }
+            }
+            dirty = Arrays.copyOf(dirty, k);
+        }
+        if (SwingUtilities.isEventDispatchThread()) {
+            canvas.update(snapshot, dirty);
+        } else {
+            int[] cells = dirty;
+            SwingUtilities.invokeLater(() -> canvas.update(snapshot, cells));
+        }
+    }
+    
+    /**
+     * Method to show the score of the player. The score is printed to the
+     * console after every turn.
+     * @param points The number of points the player has gained this level
+     * @param cleared The number of levels cleared by the player
      */
-    public void updateDisplay(TileType[][] tiles, Player player, Alien[] aliens, Asteroid[] asteroids, Blaster[] blasters, Laser[] lasers) {
-        canvas.update(tiles, player, aliens, asteroids, blasters, lasers);
-    }  
+    @Override
+    public void updateScore(int points, int cleared) {
+        System.out.println("points" + points);
+        System.out.println("level" + cleared);
+    }
+    
+    /**
+     * Method called when the game is over. It closes the game.
+     * @param won true if the player cleared every level
+     */
+    @Override
+    public void gameOver(boolean won) {
+        System.exit(0);
+    }
+
+    /**
+     * Draws the asteroids, aliens, blasters, laser beams and the player of a
+     * snapshot on top of its tiles, offset by the position of the viewport,
+     * with health bars for the aliens and the player. Used by every display
+     * that draws snapshots, so entities look the same in all of them.
+     * @param g2 The graphics object to use for drawing
+     * @param s The snapshot to draw
+     * @param sprites The images of the entities
+     * @return the number of sprites drawn
+     */
+    static int drawEntities(Graphics2D g2, FrameSnapshot s, Sprites sprites) {
+        //every asteroid, alien, blaster and the player is one sprite
+        int drawn = (s.asteroids.length + s.aliens.length + s.blasters.length) / 2 + (s.hasPlayer ? 1 : 0);
+        for (int k = 0; k < s.asteroids.length; k += 2) {
+            sprites.draw(g2, Sprites.Sprite.ASTEROID, (s.asteroids[k] - s.viewX) * TILE_WIDTH, (s.asteroids[k + 1] - s.viewY) * TILE_HEIGHT);
+        }
+        for (int k = 0; k < s.aliens.length; k += 2) {
+            int x = (s.aliens[k] - s.viewX) * TILE_WIDTH;
+            int y = (s.aliens[k + 1] - s.viewY) * TILE_HEIGHT;
+            sprites.draw(g2, Sprites.Sprite.ALIEN, x, y);
+            drawHealthBar(g2, x, y, s.alienHealth[k / 2]);
+        }
+        for (int k = 0; k < s.blasters.length; k += 2) {
+            sprites.draw(g2, Sprites.Sprite.BLASTER, (s.blasters[k] - s.viewX) * TILE_WIDTH, (s.blasters[k + 1] - s.viewY) * TILE_HEIGHT);
+        }
+        for (int k = 0; k < s.lasers.length; k += 3) {
+            int y = (s.lasers[k] - s.viewY) * TILE_HEIGHT;
+            for (int x = s.lasers[k + 1]; x < s.lasers[k + 2]; x++) {
+                sprites.draw(g2, Sprites.Sprite.LASER, (x - s.viewX) * TILE_WIDTH, y);
+                drawn++;
+            }
+        }
+        if (s.hasPlayer) {
+            int x = (s.playerX - s.viewX) * TILE_WIDTH;
+            int y = (s.playerY - s.viewY) * TILE_HEIGHT;
+            sprites.draw(g2, Sprites.Sprite.PLAYER, x, y);
+            drawHealthBar(g2, x, y, s.playerHealth);
+        }
+        return drawn;
+    }
+    
+    /**
+     * Draws a health bar at the bottom of the tile of a ship.
+     * @param g2 The graphics object to use for drawing
+     * @param x The X co-ordinate of the tile on the screen, in pixels
+     * @param y The Y co-ordinate of the tile on the screen, in pixels
+     * @param health The remaining health of the ship, from 0.0 to 1.0
+     */
+    private static void drawHealthBar(Graphics2D g2, int x, int y, double health) {
+        g2.setColor(Color.RED);
+        g2.fillRect(x, y + 29, TILE_WIDTH, HEALTH_BAR_HEIGHT);
+        g2.setColor(Color.GREEN);
+        g2.fillRect(x, y + 29, (int) (TILE_WIDTH * health), HEALTH_BAR_HEIGHT);
+    }
 }
 
 /**
- * Internal class used to draw elements within a JPanel. The Canvas class loads
- * images from an asset folder inside the main project folder.
+ * Internal class used to draw elements within a JPanel. The Canvas class draws
+ * the images loaded by a Sprites object, and repaints everything once they
+ * have been loaded in the background. Only the tiles and entities inside the
+ * viewport are drawn, so the cost of drawing does not depend on the size of
+ * the level. The tiles in view are composed once into a background image,
+ * which is only drawn again when a snapshot reports that the tiles changed,
+ * i.e. when a new level is generated or pulsars are toggled, or when the
+ * viewport moves, and every repaint draws that image with the entities on
+ * top. After a turn only the rectangles of the tiles that changed are
+ * repainted. The canvas only draws FrameSnapshot objects, and is only used
+ * on the event dispatch thread. Every paint is measured by a PaintMetrics,
+ * whose recent values can be drawn over the game as an overlay.
  * @author prtrundl
  */
 class Canvas extends JPanel {
 
-    private BufferedImage space1;
-    private BufferedImage space2;
-    private BufferedImage space3;
-    private BufferedImage space4;
-    private BufferedImage blackHole;
-    private BufferedImage player;
-    private BufferedImage asteroid;
-    private BufferedImage apulsar;
-    private BufferedImage ipulsar;
-    private BufferedImage alien;
-    private BufferedImage fireBall;
-    private BufferedImage laser;
+    private final Sprites sprites;  //the images of tiles and entities
     
-    TileType[][] currentTiles;  //the current 2D array of tiles to display
-    Player currentPlayer;       //the current player object to be drawn
-    Alien[] currentAliens;   //the current array of monsters to draw
-    Asteroid[] currentAsteroids;   //the current array of asteroids
-    Blaster[] currentBlasters; //the current array of blasters
-    Laser[] currentLasers;
+    FrameSnapshot current;      //the snapshot of the game to display, or null
+
+    final int columns;          //the width of the viewport in tiles
+    final int rows;             //the height of the viewport in tiles
+
+    private BufferedImage background;       //the tiles in view, drawn once
+    private boolean backgroundStale;        //true if the tiles changed since background was drawn
+    private int backgroundX;    //the viewX the background was drawn for
+    private int backgroundY;    //the viewY the background was drawn for
+
+    final PaintMetrics metrics = new PaintMetrics();   //measures every paint
+    boolean overlay;            //true to draw the metrics over the game
+
+    private static final int OVERLAY_WIDTH = 260;   //the size of the overlay in pixels
+    private static final int OVERLAY_HEIGHT = 34;
+    private static final Color OVERLAY_COLOR = new Color(0, 0, 0, 160);    //translucent black
     
     /**
-     * Constructor that loads tile images for use in this class
+     * Constructor that loads the images drawn by this class
+     * @param columns The width of the viewport, measured in tiles
+     * @param rows The height of the viewport, measured in tiles
      */
-    public Canvas() {
-        loadTileImages();
+    public Canvas(int columns, int rows) {
+        this.columns = columns;
+        this.rows = rows;
+        setPreferredSize(new Dimension(columns * GameGUI.TILE_WIDTH, rows * GameGUI.TILE_HEIGHT));
+        sprites = new Sprites();
+        //the placeholder images are drawn until the real ones are loaded
+        sprites.loaded().thenRun(() -> SwingUtilities.invokeLater(() -> {
+            background = null;
+            repaint();
+        }));
     }
     
     /**
-     * Loads tiles images from a fixed folder location within the project directory
+     * Updates the current graphics on the screen to display a new snapshot of
+     * the game. If the viewport has not moved only the tiles that changed are
+     * repainted.
+     * @param s The snapshot of the game to display
+     * @param changed The X and Y co-ordinates of the tiles in view that
+     * changed, in pairs, or null to repaint everything
      */
-    private void loadTileImages() {
-        try {
-            space1 = ImageIO.read(new File("assets/space1.png"));
-            assert space1.getHeight() == GameGUI.TILE_HEIGHT &&
-                    space1.getWidth() == GameGUI.TILE_WIDTH;
-            space2 = ImageIO.read(new File("assets/space2.png"));
-            assert space2.getHeight() == GameGUI.TILE_HEIGHT &&
-                    space2.getWidth() == GameGUI.TILE_WIDTH;
-            space3 = ImageIO.read(new File("assets/space3.png"));
-            assert space3.getHeight() == GameGUI.TILE_HEIGHT &&
-                    space3.getWidth() == GameGUI.TILE_WIDTH;
-            space4 = ImageIO.read(new File("assets/space4.png"));
-            assert space4.getHeight() == GameGUI.TILE_HEIGHT &&
-                    space4.getWidth() == GameGUI.TILE_WIDTH;
-            blackHole = ImageIO.read(new File("assets/blackhole.png"));
-            assert blackHole.getHeight() == GameGUI.TILE_HEIGHT &&
-                    blackHole.getWidth() == GameGUI.TILE_WIDTH;
-            player = ImageIO.read(new File("assets/player.png"));
-            assert player.getHeight() == GameGUI.TILE_HEIGHT &&
-                    player.getWidth() == GameGUI.TILE_WIDTH;
-            asteroid = ImageIO.read(new File("assets/asteroid.png"));
-            assert asteroid.getHeight() == GameGUI.TILE_HEIGHT &&
-                    asteroid.getWidth() == GameGUI.TILE_WIDTH;
-            apulsar = ImageIO.read(new File("assets/apulsar.png"));
-            assert apulsar.getHeight() == GameGUI.TILE_HEIGHT &&
-                    apulsar.getWidth() == GameGUI.TILE_WIDTH;
-            ipulsar = ImageIO.read(new File("assets/ipulsar.png"));
-            assert ipulsar.getHeight() == GameGUI.TILE_HEIGHT &&
-                    ipulsar.getWidth() == GameGUI.TILE_WIDTH;
-            alien = ImageIO.read(new File("assets/alien.png"));
-            assert alien.getHeight() == GameGUI.TILE_HEIGHT &&
-                    alien.getWidth() == GameGUI.TILE_WIDTH;
-            fireBall = ImageIO.read(new File("assets/fireBall.png"));
-            assert fireBall.getHeight() == GameGUI.TILE_HEIGHT &&
-                    fireBall.getWidth() == GameGUI.TILE_WIDTH;
-            laser = ImageIO.read(new File("assets/laser.png"));
-            assert laser.getHeight() == GameGUI.TILE_HEIGHT &&
-                    laser.getWidth() == GameGUI.TILE_WIDTH;
-        } catch (IOException e) {
-            System.out.println("Exception loading images: " + e.getMessage());
-            e.printStackTrace(System.out);
+    public void update(FrameSnapshot s, int[] changed) {
+        FrameSnapshot old = current;
+        current = s;
+        //kept until painted, as the snapshot may be replaced before a paint
+        backgroundStale |= s.tilesChanged;
+        if (changed == null || old == null || old.viewX != s.viewX || old.viewY != s.viewY) {
+            metrics.recordSnapshot(1);
+            repaint();
+            return;
         }
-    }
-    
-    /**
-     * Updates the current graphics on the screen to display the tiles, player and monsters
-     * @param t The 2D array of TileTypes representing the current level of the dungeon
-     * @param player The current player object, used to draw the player and its health
-     * @param mon The array of monsters to display them and their health
-     * @param bl The array of Blaster objects to display them
-     * @param ls The array of Laser objects to display them
-     */
-    public void update(TileType[][] t, Player player, Alien[] al, Asteroid[] as, Blaster[] bl, Laser[] ls) {
-        currentTiles = t;
-        currentPlayer = player;
-        currentAliens = al;
-        currentAsteroids = as;
-        currentBlasters = bl;
-        currentLasers = ls;
-        repaint();
+        for (int i = 0; i < changed.length; i += 2) {
+            repaint((changed[i] - s.viewX) * GameGUI.TILE_WIDTH, (changed[i + 1] - s.viewY) * GameGUI.TILE_HEIGHT,
+                    GameGUI.TILE_WIDTH, GameGUI.TILE_HEIGHT);
+        }
+        if (overlay) {
+            repaint(0, 0, OVERLAY_WIDTH, OVERLAY_HEIGHT);   //the metrics change every frame
+        }
+        metrics.recordSnapshot(changed.length / 2 + (overlay ? 1 : 0));
     }
     
     /**
      * Override of method in super class, it draws the custom elements for this
-     * game such as the tiles, player, aliens and asteroids.
+     * game such as the tiles, player, aliens and asteroids. The time taken
+     * and the sprites drawn are recorded in the metrics, and the overlay is
+     * drawn on top if it is shown.
      * @param g 
      */
     @Override
     public void paintComponent(Graphics g) {
+        long start = System.nanoTime();
         super.paintComponent(g);
-        drawSpace(g);
+        int drawn = drawSpace(g);
+        metrics.recordFrame(start, System.nanoTime() - start, drawn);
+        if (overlay) {
+            drawOverlay(g);
+        }
     }
 
     /**
-     * Draws graphical elements to the screen to display the current level
-     * tiles, the player, asteroids and the aliens. If the tiles, player or
-     * alien objects are null they will not be drawn.
+     * Draws the recent paint metrics in a box at the top left corner.
      * @param g Graphics object to use for drawing
      */
-    private void drawSpace(Graphics g) {
-        Graphics2D g2 = (Graphics2D) g;
-        Random r = new Random(555);
-        if (currentTiles != null) {
-            for (int i = 0; i < currentTiles.length; i++) {
-                for (int j = 0; j < currentTiles[i].length; j++) {
-                    switch (currentTiles[i][j]) {
-                        case SPACE:
-                            double ran = r.nextDouble();
-                            if (ran < 0.25)
-                                g2.drawImage(space1, i * GameGUI.TILE_WIDTH, j * GameGUI.TILE_HEIGHT, null);
-                            else if (ran < 0.5)
-                                g2.drawImage(space2, i * GameGUI.TILE_WIDTH, j * GameGUI.TILE_HEIGHT, null);
-                            else if (ran < 0.75)
-                                g2.drawImage(space3, i * GameGUI.TILE_WIDTH, j * GameGUI.TILE_HEIGHT, null);
-                            else
-                                g2.drawImage(space4, i * GameGUI.TILE_WIDTH, j * GameGUI.TILE_HEIGHT, null);
-                            break;
-                        case BLACK_HOLE:
-                            g2.drawImage(blackHole, i * GameGUI.TILE_WIDTH, j * GameGUI.TILE_HEIGHT, null);
-                            break;
-                        case PULSAR_ACTIVE:
-                            g2.drawImage(apulsar, i * GameGUI.TILE_WIDTH, j * GameGUI.TILE_HEIGHT, null);
-                            break;
-                        case PULSAR_INACTIVE:
-                            g2.drawImage(ipulsar, i * GameGUI.TILE_WIDTH, j * GameGUI.TILE_HEIGHT, null);
-                    }
-                }
-            }
+    private void drawOverlay(Graphics g) {
+        g.setColor(OVERLAY_COLOR);
+        g.fillRect(0, 0, OVERLAY_WIDTH, OVERLAY_HEIGHT);
+        g.setColor(Color.WHITE);
+        g.drawString(String.format("%.1f fps  paint %.2f ms (max %.2f)", metrics.getFramesPerSecond(),
+                metrics.getAveragePaintMicros() / 1e3, metrics.getMaxPaintMicros() / 1e3), 4, 14);
+        g.drawString(String.format("%.0f sprites  %d coalesced  %d dropped", metrics.getAverageSprites(),
+                metrics.getCoalescedRepaints(), metrics.getDroppedSnapshots()), 4, 29);
+    }
+
+    /**
+     * Checks if the background image has to be drawn again, because it has
+     * not been drawn yet, the viewport has moved or a snapshot reported that
+     * the tiles changed since it was drawn.
+     * @return true if the background is out of date
+     */
+    private boolean isBackgroundStale() {
+        return background == null || backgroundStale
+                || backgroundX != current.viewX || backgroundY != current.viewY;
+    }
+
+    /**
+     * Draws the tiles in view into the background image, creating the image
+     * the first time in a format compatible with the screen so it can be
+     * drawn quickly.
+     * @return the number of sprites drawn
+     */
+    private int renderBackground() {
+        if (background == null) {
+            int w = columns * GameGUI.TILE_WIDTH;
+            int h = rows * GameGUI.TILE_HEIGHT;
+            GraphicsConfiguration gc = getGraphicsConfiguration();
+            background = gc != null ? gc.createCompatibleImage(w, h)
+                    : new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
         }
-        if (currentAsteroids != null)
-            for(Asteroid a : currentAsteroids)
-                if (a != null) {
-                    g2.drawImage(asteroid, a.getX() * GameGUI.TILE_WIDTH, a.getY() * GameGUI.TILE_HEIGHT, null);
-                }
-        if (currentAliens != null)
-            for(Alien a : currentAliens)
-                if (a != null) {
-                    g2.drawImage(alien, a.getX() * GameGUI.TILE_WIDTH, a.getY() * GameGUI.TILE_HEIGHT, null);
-                    drawHealthBar(g2, a);
-                }
-        if (currentBlasters != null) 
-            for(Blaster bl : currentBlasters)
-                if (bl != null) {
-                    g2.drawImage(fireBall, bl.getX() * GameGUI.TILE_WIDTH, bl.getY() * GameGUI.TILE_HEIGHT, null);
+        int drawn = 0;
+        Graphics2D g2 = background.createGraphics();
+        g2.setColor(Color.BLACK);
+        g2.fillRect(0, 0, background.getWidth(), background.getHeight());
+        for (int i = 0; i < columns; i++) {
+            for (int j = 0; j < rows; j++) {
+                TileType t = current.getTile(current.viewX + i, current.viewY + j);
+                if (t != null) {
+                    sprites.draw(g2, sprites.tileSprite(t, current.viewX + i, current.viewY + j),
+                            i * GameGUI.TILE_WIDTH, j * GameGUI.TILE_HEIGHT);
+                    drawn++;
                 }
-        if (currentLasers != null)
-            for(Laser ls : currentLasers)
-                if (ls != null) {
-                    g2.drawImage(laser, ls.getX() * GameGUI.TILE_WIDTH, ls.getY() * GameGUI.TILE_HEIGHT, null);
-                }
-        if (currentPlayer != null) {
-            g2.drawImage(player, currentPlayer.getX() * GameGUI.TILE_WIDTH, currentPlayer.getY() * GameGUI.TILE_HEIGHT, null);
-            drawHealthBar(g2, currentPlayer);
+            }
         }
+        g2.dispose();
+        backgroundX = current.viewX;
+        backgroundY = current.viewY;
+        backgroundStale = false;
+        return drawn;
     }
-    
+
     /**
-     * Draws a health bar for the given entity at the bottom of the tile that
-     * the entity is located in.
-     * @param g2 The graphics object to use for drawing
-     * @param e The entity that the health bar will be drawn for
+     * Draws graphical elements to the screen to display the current level
+     * tiles, the player, asteroids and the aliens from the current snapshot.
+     * Nothing is drawn before the first snapshot. The tiles are drawn as
+     * one background image, which is drawn again first if it is out of date.
+     * The snapshot only holds the entities inside the viewport, which are
+     * drawn offset by the position of the viewport.
+     * @param g Graphics object to use for drawing
+     * @return the number of sprites drawn, including the tiles if the
+     * background was drawn again
      */
-    private void drawHealthBar(Graphics2D g2, Ship e) {
-        double remainingHealth = (double)e.getHullStrength() / (double)e.getMaxHull();
-        g2.setColor(Color.RED);
-        g2.fill(new Rectangle2D.Double(e.getX() * GameGUI.TILE_WIDTH, e.getY() * GameGUI.TILE_HEIGHT + 29, GameGUI.TILE_WIDTH, GameGUI.HEALTH_BAR_HEIGHT));
-        g2.setColor(Color.GREEN);
-        g2.fill(new Rectangle2D.Double(e.getX() * GameGUI.TILE_WIDTH, e.getY() * GameGUI.TILE_HEIGHT + 29, GameGUI.TILE_WIDTH * remainingHealth, GameGUI.HEALTH_BAR_HEIGHT));
+    private int drawSpace(Graphics g) {
+        Graphics2D g2 = (Graphics2D) g;
+        FrameSnapshot s = current;
+        if (s == null) {
+            return 0;
+        }
+        int drawn = 0;
+        if (isBackgroundStale()) {
+            drawn += renderBackground();
+        }
+        g2.drawImage(background, 0, 0, null);
+        return drawn + GameGUI.drawEntities(g2, s, sprites);
     }
 }
@@ -0,0 +1,449 @@
+package uk.ac.bradford.spacegame;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The GameLoop class runs a GameEngine on its own thread, so the turns of the
+ * game never hold up the event dispatch thread that paints the game and
+ * handles the keyboard. The actions of the player are submitted to an
+ * InputQueue by the keyboard handler, and the loop thread takes them from the
+ * queue. After the loop has started the engine must only be used by the loop
+ * thread.
+ * <p>
+ * By default the loop performs a turn for every submitted action, in order,
+ * and is parked while the queue is empty, so the game only advances when a
+ * key is pressed. The actions queued while the loop was busy, e.g. by the
+ * auto-repeat of a held key, are handled in one batch as chosen by the
+ * InputCoalescing of the loop, and only the state after the batch is drawn,
+ * so the display is never more than one batch behind the keyboard. In
+ * real-time mode the loop performs a turn, or tick, at a
+ * fixed rate instead, using the oldest queued action or the action of an
+ * InputPolicy if none is queued. Ticks are scheduled on a fixed timestep
+ * measured with System.nanoTime, so a late tick does not delay the ones after
+ * it; if the loop falls more than MAX_CATCH_UP_TICKS behind, the extra ticks
+ * are skipped rather than run back to back. The loop counts the ticks that
+ * took longer than the timestep and the ticks skipped, so it can be measured
+ * whether the engine keeps up with a tick rate.
+ * @author klaudiabzdyk
+ */
+public class GameLoop {
+
+    /**
+     * The number of actions that can wait in the queue. Key presses beyond
+     * this while the engine is busy are dropped.
+     */
+    private static final int QUEUE_CAPACITY = 64;
+
+    /**
+     * The largest number of late ticks run back to back to catch up in
+     * real-time mode; ticks later than this are skipped.
+     */
+    private static final int MAX_CATCH_UP_TICKS = 5;
+
+    /**
+     * The engine of the game.
+     */
+    private final GameEngine engine;
+
+    /**
+     * The actions waiting to be performed.
+     */
+    private final InputQueue input = new InputQueue(QUEUE_CAPACITY);
+
+    /**
+     * The thread running the turns of the game.
+     */
+    private final Thread thread;
+
+    /**
+     * Set to false to stop the loop.
+     */
+    private volatile boolean running = true;
+
+    /**
+     * How actions queued while the loop was busy are handled.
+     */
+    private volatile InputCoalescing coalescing = InputCoalescing.ALL;
+
+    /**
+     * The time between two ticks in nanoseconds, or 0 to perform a turn for
+     * every submitted action instead.
+     */
+    private final long tickNanos;
+
+    /**
+     * Decides the action of a tick when no action is queued.
+     */
+    private final InputPolicy idle;
+
+    /**
+     * The number of turns performed, written only by the loop thread.
+     */
+    private volatile long ticks;
+
+    /**
+     * The number of queued actions dropped by LATEST coalescing.
+     */
+    private volatile long dropped;
+
+    /**
+     * The number of ticks that took longer than the timestep.
+     */
+    private volatile long overruns;
+
+    /**
+     * The number of ticks skipped because the loop fell too far behind.
+     */
+    private volatile long skipped;
+
+    /**
+     * The total time taken by the turns in nanoseconds.
+     */
+    private volatile long totalNanos;
+
+    /**
+     * The time taken by the slowest turn in nanoseconds.
+     */
+    private volatile long maxNanos;
+
+    /**
+     * The time the loop thread started, from System.nanoTime.
+     */
+    private volatile long startNanos;
+
+    /**
+     * The time the loop thread finished, or 0 while it runs.
+     */
+    private volatile long endNanos;
+
+    /**
+     * Creates a loop for an engine. The loop thread is started by start.
+     * @param engine The engine of the game, which must not be used by other
+     * threads once the loop has started
+     */
+    public GameLoop(GameEngine engine) {
+        this.engine = engine;
+        this.tickNanos = 0;
+        this.idle = null;
+        thread = new Thread(this::run, "game-loop");
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Creates a real-time loop for an engine, performing a tick at a fixed
+     * rate. Ticks without a queued action do nothing but a turn of the game.
+     * @param engine The engine of the game, which must not be used by other
+     * threads once the loop has started
+     * @param tickRate The number of ticks per second
+     * @throws IllegalArgumentException if the tick rate is not positive
+     */
+    public GameLoop(GameEngine engine, int tickRate) {
+        this(engine, tickRate, e -> PlayerAction.NONE);
+    }
+
+    /**
+     * Creates a real-time loop for an engine, performing a tick at a fixed
+     * rate, e.g. to time a game played by a policy.
+     * @param engine The engine of the game, which must not be used by other
+     * threads once the loop has started
+     * @param tickRate The number of ticks per second
+     * @param idle Decides the action of ticks without a queued action
+     * @throws IllegalArgumentException if the tick rate is not positive
+     */
+    public GameLoop(GameEngine engine, int tickRate, InputPolicy idle) {
+        if (tickRate < 1) {
+            throw new IllegalArgumentException("Tick rate must be positive: " + tickRate);
+        }
+        this.engine = engine;
+        this.tickNanos = 1000000000L / tickRate;
+        this.idle = idle;
+        thread = new Thread(this::run, "game-loop");
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Starts the loop thread.
+     */
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * Submits an action of the player, to be performed in a turn by the loop
+     * thread. Must only be called by one thread, usually the event dispatch
+     * thread.
+     * @param action The action of the player
+     * @return true if the action was queued, false if the queue was full and
+     * the action was dropped
+     */
+    public boolean submit(PlayerAction action) {
+        if (!input.offer(action)) {
+            return false;
+        }
+        LockSupport.unpark(thread);
+        return true;
+    }
+
+    /**
+     * Stops the loop after the turn being performed, if any. Queued actions
+     * are not performed.
+     */
+    public void stop() {
+        running = false;
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Sets how actions queued while the loop was busy are handled. Can be
+     * changed while the loop runs.
+     * @param coalescing ALL to perform every action, LATEST to perform only
+     * the newest one
+     */
+    public void setCoalescing(InputCoalescing coalescing) {
+        this.coalescing = coalescing;
+    }
+
+    /**
+     * Gets how actions queued while the loop was busy are handled.
+     * @return the coalescing of the loop
+     */
+    public InputCoalescing getCoalescing() {
+        return coalescing;
+    }
+
+    /**
+     * Gets the number of queued actions dropped because a newer one was
+     * queued, with LATEST coalescing.
+     * @return the number of dropped actions
+     */
+    public long getDroppedActions() {
+        return dropped;
+    }
+
+    /**
+     * Checks if the loop is still running, i.e. it has not been stopped and
+     * the game is not over.
+     * @return true if the loop is running
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Gets the number of turns performed by the loop.
+     * @return the number of turns
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Gets the number of ticks that took longer than the timestep in
+     * real-time mode.
+     * @return the number of overrunning ticks
+     */
+    public long getOverruns() {
+        return overruns;
+    }
+
+    /**
+     * Gets the number of ticks skipped in real-time mode because the loop
+     * fell more than MAX_CATCH_UP_TICKS behind.
+     * @return the number of skipped ticks
+     */
+    public long getSkippedTicks() {
+        return skipped;
+    }
+
+    /**
+     * Gets the time taken by the slowest turn.
+     * @return the time in nanoseconds
+     */
+    public long getMaxTickNanos() {
+        return maxNanos;
+    }
+
+    /**
+     * Gets the average time taken by a turn.
+     * @return the time in nanoseconds, 0 if no turn was performed
+     */
+    public double getAverageTickNanos() {
+        long n = ticks;
+        return n == 0 ? 0 : (double) totalNanos / n;
+    }
+
+    /**
+     * Makes a report of the turns performed by the loop and the time they
+     * took, and in real-time mode of the tick rate achieved.
+     * @return the report, several lines of text
+     */
+    public String report() {
+        long end = endNanos != 0 ? endNanos : System.nanoTime();
+        double seconds = startNanos == 0 ? 0 : (end - startNanos) / 1e9;
+        StringBuilder sb = new StringBuilder();
+        if (tickNanos == 0) {
+            sb.append(String.format("turns:     %d in %.1f s%n", ticks, seconds));
+        } else {
+            sb.append(String.format("ticks:     %d in %.1f s, %.1f per second of %d%n",
+                    ticks, seconds, seconds == 0 ? 0 : ticks / seconds, 1000000000L / tickNanos));
+            sb.append(String.format("overruns:  %d ticks longer than %.3f ms%n", overruns, tickNanos / 1e6));
+            sb.append(String.format("skipped:   %d ticks%n", skipped));
+        }
+        sb.append(String.format("dropped:   %d actions%n", dropped));
+        sb.append(String.format("turn time: avg %.3f ms, max %.3f ms%n", getAverageTickNanos() / 1e6, maxNanos / 1e6));
+        return sb.toString();
+    }
+
+    /**
+     * The loop run by the loop thread, until the game is over or the loop is
+     * stopped.
+     */
+    private void run() {
+        startNanos = System.nanoTime();
+        if (tickNanos == 0) {
+            runOnInput();
+        } else {
+            runInRealTime();
+        }
+        endNanos = System.nanoTime();
+    }
+
+    /**
+     * Performs the queued actions in batches and parks while there are none.
+     * With ALL coalescing every action of a batch gets a turn and only the
+     * last turn is drawn; with LATEST only the newest action gets a turn.
+     */
+    private void runOnInput() {
+        while (running) {
+            PlayerAction action = input.poll();
+            if (action == null) {
+                LockSupport.park(this);
+            } else if (coalescing == InputCoalescing.LATEST) {
+                turn(latest(action), true);
+            } else {
+                PlayerAction next = input.poll();
+                while (next != null && running && turn(action, false)) {
+                    action = next;
+                    next = input.poll();
+                }
+                if (running) {
+                    turn(action, true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Takes all the queued actions and counts them as dropped, except the
+     * newest one.
+     * @param action The oldest action, already taken from the queue
+     * @return the newest action
+     */
+    private PlayerAction latest(PlayerAction action) {
+        for (PlayerAction next = input.poll(); next != null; next = input.poll()) {
+            action = next;
+            dropped++;
+        }
+        return action;
+    }
+
+    /**
+     * Performs a tick every timestep, parking until the next tick is due.
+     * Submitted actions unpark the thread early, which only makes it check
+     * the time again.
+     */
+    private void runInRealTime() {
+        long next = System.nanoTime();
+        while (running) {
+            long late = System.nanoTime() - next;
+            if (late < 0) {
+                LockSupport.parkNanos(this, -late);
+                continue;
+            }
+            long behind = late / tickNanos;
+            if (behind > MAX_CATCH_UP_TICKS) {
+                skipped += behind - MAX_CATCH_UP_TICKS;
+                next += (behind - MAX_CATCH_UP_TICKS) * tickNanos;
+            }
+            PlayerAction action = input.poll();
+            if (action != null && coalescing == InputCoalescing.LATEST) {
+                action = latest(action);
+            }
+            turn(action != null ? action : idle.nextAction(engine), true);
+            next += tickNanos;
+        }
+    }
+
+    /**
+     * Performs a turn with an action and measures the time it takes. The loop
+     * stops when the game is over.
+     * @param action The action of the player
+     * @param draw true to draw the game after the turn
+     * @return true if the game is still running after the turn
+     */
+    private boolean turn(PlayerAction action, boolean draw) {
+        long start = System.nanoTime();
+        boolean more = engine.step(action, draw);
+        long took = System.nanoTime() - start;
+        ticks++;
+        totalNanos += took;
+        if (took > maxNanos) {
+            maxNanos = took;
+        }
+        if (tickNanos != 0 && took > tickNanos) {
+            overruns++;
+        }
+        if (!more) {
+            running = false;
+        }
+        return more;
+    }
+
+    /**
+     * Plays a timed session in real-time mode without a display and prints
+     * how well the loop kept up with the tick rate. The games are played by
+     * random policies, and a new game is started whenever one is over until
+     * the session ends. The arguments are the tick rate (1000 by default),
+     * the length of the session in seconds (10 by default), and the width and
+     * height of the levels (GRID_WIDTH by GRID_HEIGHT by default). The phases
+     * of the turns are timed, and their timings printed at the end.
+     * @param args The arguments of the session
+     * @throws InterruptedException if interrupted while waiting for a game
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int tickRate = args.length >= 1 ? Integer.parseInt(args[0]) : 1000;
+        int seconds = args.length >= 2 ? Integer.parseInt(args[1]) : 10;
+        int width = args.length >= 4 ? Integer.parseInt(args[2]) : GameEngine.GRID_WIDTH;
+        int height = args.length >= 4 ? Integer.parseInt(args[3]) : GameEngine.GRID_HEIGHT;
+        long start = System.nanoTime();
+        long end = start + seconds * 1000000000L;
+        long ticks = 0, overruns = 0, skipped = 0, total = 0, max = 0;
+        int games = 0;
+        TurnTimings timings = new TurnTimings();
+        while (System.nanoTime() < end) {
+            GameEngine engine = new GameEngine(width, height, GameConfig.DEFAULT, games);
+            engine.setTimings(timings);
+            GameLoop loop = new GameLoop(engine, tickRate, InputPolicy.random(games));
+            games++;
+            loop.start();
+            while (loop.isRunning() && System.nanoTime() < end) {
+                Thread.sleep(10);
+            }
+            loop.stop();
+            loop.thread.join();
+            ticks += loop.ticks;
+            overruns += loop.overruns;
+            skipped += loop.skipped;
+            total += loop.totalNanos;
+            max = Math.max(max, loop.maxNanos);
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        System.out.println(String.format("ticks:     %d in %.1f s over %d games, %.1f per second of %d",
+                ticks, elapsed, games, ticks / elapsed, tickRate));
+        System.out.println(String.format("overruns:  %d ticks longer than %.3f ms", overruns, 1000.0 / tickRate));
+        System.out.println(String.format("skipped:   %d ticks", skipped));
+        System.out.println(String.format("turn time: avg %.3f ms, max %.3f ms",
+                ticks == 0 ? 0 : total / 1e6 / ticks, max / 1e6));
+        System.out.print(timings.getReport());
+    }
+}
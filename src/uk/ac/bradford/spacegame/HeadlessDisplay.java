@@ -0,0 +1,30 @@
+package uk.ac.bradford.spacegame;
+
+import uk.ac.bradford.spacegame.GameEngine.TileType;
+
+/**
+ * The HeadlessDisplay class is a GameDisplay that does nothing. It is used by
+ * a GameEngine running without a GUI, so turns can be simulated as fast as
+ * possible, e.g. for balancing, bot training or regression runs.
+ * @author klaudiabzdyk
+ */
+public class HeadlessDisplay implements GameDisplay {
+
+    /**
+     * Does nothing.
+     */
+    @Override
+    public void updateDisplay(TileType[][] tiles, Player player, Alien[] aliens, Asteroid[] asteroids, Blaster[] blasters, LaserSpans lasers, DirtyCells changed) {}
+
+    /**
+     * Does nothing.
+     */
+    @Override
+    public void updateScore(int points, int cleared) {}
+
+    /**
+     * Does nothing, the result can be read from the engine instead.
+     */
+    @Override
+    public void gameOver(boolean won) {}
+}
@@ -0,0 +1,14 @@
+package uk.ac.bradford.spacegame;
+
+/**
+ * An enumeration type to represent how a GameLoop handles several actions
+ * that were queued while it was busy, e.g. by the auto-repeat of a held key.
+ * ALL performs a turn for every queued action, in order, and draws the game
+ * only after the last of them. LATEST performs a single turn with the newest
+ * action and drops the older ones, so the game never falls behind the
+ * keyboard.
+ * @author klaudiabzdyk
+ */
+public enum InputCoalescing {
+    ALL, LATEST
+}
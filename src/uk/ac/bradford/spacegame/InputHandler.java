@@ -6,22 +6,23 @@ import java.awt.event.KeyListener;
 /**
  * This class handles keyboard events (key presses) captured by a GameGUI object
  * that are passed to an instance of this class. The class is responsible for
- * calling methods in the GameEngine class that will update tiles, players and
- * aliens for the various key presses that are handled.
+ * turning the various key presses that are handled into actions of the player
+ * and submitting them to the GameLoop, whose thread performs the turns. No
+ * game work is done on the event dispatch thread.
  * @author prtrundl & klaudiabzdyk
  */
 public class InputHandler implements KeyListener {
 
-    GameEngine engine;      //GameEngine that this class calls methods from
+    GameLoop loop;      //GameLoop that this class submits actions to
     
     /**
      * Constructor that forms a connection between a InputHandler object and
-     * a GameEngine object. The GameEngine object registered here is the one that will
-     * have methods called to change player and alien positions etc.
-     * @param eng The GameEngine object that this InputHandler is linked to
+     * a GameLoop object. The GameLoop object registered here is the one that
+     * will perform a turn for every key press.
+     * @param loop The GameLoop object that this InputHandler is linked to
      */
-    public InputHandler(GameEngine eng) {
-        engine = eng;
+    public InputHandler(GameLoop loop) {
+        this.loop = loop;
     }
     
     /**
@@ -32,22 +33,31 @@ public class InputHandler implements KeyListener {
     public void keyTyped(KeyEvent e) {}
 
     /**
-     * Method to handle key presses captured by the GameGUI. The method currently
-     * calls the game engine to do a game turn for any key press, but if the up,
-     * down, left or right arrow keys are pressed it also calls methods in the
-     * engine to update the game by moving the player (and monsters if implemented)
+     * Method to handle key presses captured by the GameGUI. The method submits
+     * an action to the game loop for any key press, so the loop does a game
+     * turn for it; if the up, down, left or right arrow keys or shift are
+     * pressed the action also moves the player or fires the blasters.
      * @param e A KeyEvent object generated when a keyboard key is pressed
      */
     @Override
     public void keyPressed(KeyEvent e) {
-        switch (e.getKeyCode()) {
-            case KeyEvent.VK_LEFT: engine.movePlayerLeft(); break;  //handle left arrow
-            case KeyEvent.VK_RIGHT: engine.movePlayerRight(); break;//handle right arrow
-            case KeyEvent.VK_UP: engine.movePlayerUp(); break;      //handle up arrow
-            case KeyEvent.VK_DOWN: engine.movePlayerDown(); break;  //handle down arrow
-            case KeyEvent.VK_SHIFT: engine.blastersOn(); break; //handle shift
+        loop.submit(toAction(e.getKeyCode()));    //any key press results in a turn
+    }
+
+    /**
+     * Maps a key to the action of the player it stands for.
+     * @param keyCode The code of the pressed key
+     * @return the action of the player, NONE for keys without an action
+     */
+    static PlayerAction toAction(int keyCode) {
+        switch (keyCode) {
+            case KeyEvent.VK_LEFT: return PlayerAction.LEFT;    //handle left arrow
+            case KeyEvent.VK_RIGHT: return PlayerAction.RIGHT;  //handle right arrow
+            case KeyEvent.VK_UP: return PlayerAction.UP;        //handle up arrow
+            case KeyEvent.VK_DOWN: return PlayerAction.DOWN;    //handle down arrow
+            case KeyEvent.VK_SHIFT: return PlayerAction.FIRE;   //handle shift
+            default: return PlayerAction.NONE;
         }
-        engine.doTurn();    //any key press will result in this method being called
     }
 
     /**
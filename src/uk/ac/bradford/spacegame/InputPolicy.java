@@ -0,0 +1,49 @@
+package uk.ac.bradford.spacegame;
+
+import java.util.Random;
+
+/**
+ * The InputPolicy interface decides the actions of a player that is not a
+ * person at a keyboard, e.g. in the games played by a BatchRunner. A policy
+ * is asked for an action before every turn and can look at the engine to
+ * decide it. Policies can keep state, so every game should use its own.
+ * @author klaudiabzdyk
+ */
+public interface InputPolicy {
+
+    /**
+     * Decides the action of the player in the next turn.
+     * @param engine The engine of the game being played
+     * @return the action of the player
+     */
+    PlayerAction nextAction(GameEngine engine);
+
+    /**
+     * Creates a policy which picks every action at random, each with the same
+     * chance.
+     * @param seed The seed of the random number generator of the policy, so
+     * the same seed always gives the same actions
+     * @return the random policy
+     */
+    static InputPolicy random(long seed) {
+        Random rng = new Random(seed);
+        PlayerAction[] actions = PlayerAction.values();
+        return engine -> actions[rng.nextInt(actions.length)];
+    }
+
+    /**
+     * Creates a policy which repeats a script of actions, starting again from
+     * the first action after the last one.
+     * @param script The actions to repeat, at least one
+     * @return the scripted policy
+     */
+    static InputPolicy scripted(PlayerAction... script) {
+        PlayerAction[] actions = script.clone();
+        int[] next = new int[1];
+        return engine -> {
+            PlayerAction action = actions[next[0]];
+            next[0] = (next[0] + 1) % actions.length;
+            return action;
+        };
+    }
+}
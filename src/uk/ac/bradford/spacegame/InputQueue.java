@@ -0,0 +1,99 @@
+package uk.ac.bradford.spacegame;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The InputQueue class passes the actions of the player from the thread
+ * handling keyboard events to the thread running the game. It is a bounded
+ * ring buffer for a single producer and a single consumer, which needs no
+ * locks: the producer is the only thread writing the tail counter and the
+ * consumer the only thread writing the head counter, and each publishes its
+ * counter with an ordered write after touching the buffer. Actions are stored
+ * as the bytes of their ordinals, so the queue creates no objects.
+ * @author klaudiabzdyk
+ */
+public final class InputQueue {
+
+    /**
+     * All PlayerAction values, indexed by their ordinal.
+     */
+    private static final PlayerAction[] ACTIONS = PlayerAction.values();
+
+    /**
+     * The ordinals of the queued actions; the length is a power of two.
+     */
+    private final byte[] buffer;
+
+    /**
+     * The length of the buffer minus one, used to wrap the counters.
+     */
+    private final int mask;
+
+    /**
+     * The number of actions taken from the queue, written by the consumer.
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * The number of actions added to the queue, written by the producer.
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * Creates an empty queue.
+     * @param capacity The largest number of actions waiting in the queue,
+     * rounded up to a power of two
+     * @throws IllegalArgumentException if the capacity is not positive or
+     * larger than 2^30
+     */
+    public InputQueue(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        buffer = new byte[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Adds an action to the queue. Must only be called by the producer.
+     * @param action The action to add
+     * @return true if the action was added, false if the queue is full
+     */
+    public boolean offer(PlayerAction action) {
+        long t = tail.get();
+        if (t - head.get() == buffer.length) {
+            return false;
+        }
+        buffer[(int) t & mask] = (byte) action.ordinal();
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /**
+     * Takes the oldest action from the queue. Must only be called by the
+     * consumer.
+     * @return the action, or null if the queue is empty
+     */
+    public PlayerAction poll() {
+        long h = head.get();
+        if (h == tail.get()) {
+            return null;
+        }
+        PlayerAction action = ACTIONS[buffer[(int) h & mask]];
+        head.lazySet(h + 1);
+        return action;
+    }
+
+    /**
+     * Gets the number of actions in the queue. The number may already be out
+     * of date when it is returned.
+     * @return the number of queued actions
+     */
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+}
@@ -0,0 +1,115 @@
+package uk.ac.bradford.spacegame;
+
+/**
+ * The LaserSpans class stores the laser beams fired by the aliens. Every alien
+ * fires to its right along its row, so a beam is a span of tiles in one row,
+ * stored as the row, the X co-ordinate of its first tile and the X
+ * co-ordinate just after its last tile. Spans are kept in primitive arrays
+ * that are reused every time the aliens fire.
+ * @author klaudiabzdyk
+ */
+public class LaserSpans {
+
+    /**
+     * The row (Y co-ordinate) of every span.
+     */
+    private final int[] row;
+
+    /**
+     * The X co-ordinate of the first tile of every span.
+     */
+    private final int[] start;
+
+    /**
+     * The X co-ordinate just after the last tile of every span.
+     */
+    private final int[] end;
+
+    /**
+     * The number of spans currently stored.
+     */
+    private int count;
+
+    /**
+     * Creates an empty set of spans.
+     * @param capacity The maximum number of spans, i.e. the number of aliens
+     */
+    public LaserSpans(int capacity) {
+        row = new int[capacity];
+        start = new int[capacity];
+        end = new int[capacity];
+    }
+
+    /**
+     * Removes every span.
+     */
+    public void clear() {
+        count = 0;
+    }
+
+    /**
+     * Adds a span. Empty spans, where start is not less than end, are
+     * ignored.
+     * @param y The row of the span
+     * @param x1 The X co-ordinate of the first tile of the span
+     * @param x2 The X co-ordinate just after the last tile of the span
+     */
+    public void add(int y, int x1, int x2) {
+        if (x1 < x2) {
+            row[count] = y;
+            start[count] = x1;
+            end[count] = x2;
+            count++;
+        }
+    }
+
+    /**
+     * Gets the number of spans currently stored.
+     * @return the number of laser beams
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the row of a span.
+     * @param i The index of the span, less than getCount()
+     * @return the Y co-ordinate of the span
+     */
+    public int getRow(int i) {
+        return row[i];
+    }
+
+    /**
+     * Gets the first tile of a span.
+     * @param i The index of the span, less than getCount()
+     * @return the X co-ordinate of the first tile of the span
+     */
+    public int getStart(int i) {
+        return start[i];
+    }
+
+    /**
+     * Gets the end of a span.
+     * @param i The index of the span, less than getCount()
+     * @return the X co-ordinate just after the last tile of the span
+     */
+    public int getEnd(int i) {
+        return end[i];
+    }
+
+    /**
+     * Checks if a tile is covered by any span.
+     * @param x The X co-ordinate of the tile
+     * @param y The Y co-ordinate of the tile
+     * @return true if a laser beam goes through the tile
+     */
+    public boolean contains(int x, int y) {
+        for (int i = 0; i < count; i++) {
+            if (row[i] == y && start[i] <= x && x < end[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
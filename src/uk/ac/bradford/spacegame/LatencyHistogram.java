@@ -0,0 +1,189 @@
+package uk.ac.bradford.spacegame;
+
+import java.util.Arrays;
+
+/**
+ * The LatencyHistogram class counts durations in nanoseconds in log-linear
+ * buckets, like an HdrHistogram: every power of two range of values is split
+ * into SUB_BUCKETS buckets of the same width, so every recorded value is
+ * kept with an error of at most about 3% however large it is, in a fixed
+ * amount of memory. Recording a value is a few arithmetic operations and an
+ * array increment. Histograms are not thread safe; a TurnTimings guards its
+ * own.
+ * @author klaudiabzdyk
+ */
+public final class LatencyHistogram {
+
+    /**
+     * The base 2 logarithm of SUB_BUCKETS.
+     */
+    private static final int SUB_BUCKET_BITS = 5;
+
+    /**
+     * The number of buckets every power of two range is split into. Values
+     * below this have a bucket each.
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * The number of buckets needed for every positive long value.
+     */
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    /**
+     * The number of values recorded in every bucket.
+     */
+    private final long[] counts = new long[BUCKETS];
+
+    /**
+     * The number of values recorded.
+     */
+    private long count;
+
+    /**
+     * The sum of the values recorded.
+     */
+    private long total;
+
+    /**
+     * The smallest value recorded, or Long.MAX_VALUE if none was.
+     */
+    private long min = Long.MAX_VALUE;
+
+    /**
+     * The largest value recorded, or 0 if none was.
+     */
+    private long max;
+
+    /**
+     * Records a value. Negative values are recorded as 0.
+     * @param nanos The value, a duration in nanoseconds
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts[bucket(value)]++;
+        count++;
+        total += value;
+        if (value < min) {
+            min = value;
+        }
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    /**
+     * Adds all the values recorded by another histogram to this one.
+     * @param other The other histogram
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        total += other.total;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Removes all the recorded values.
+     */
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        total = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+
+    /**
+     * Gets the number of values recorded.
+     * @return the number of values
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the sum of the values recorded.
+     * @return the sum in nanoseconds
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Gets the smallest value recorded.
+     * @return the value in nanoseconds, 0 if none was recorded
+     */
+    public long getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    /**
+     * Gets the largest value recorded.
+     * @return the value in nanoseconds, 0 if none was recorded
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Gets the average of the values recorded.
+     * @return the average in nanoseconds, 0 if none was recorded
+     */
+    public double getMean() {
+        return count == 0 ? 0 : (double) total / count;
+    }
+
+    /**
+     * Gets the value below or at which a percentage of the recorded values
+     * are, e.g. 99.0 for the 99th percentile. The value is the largest of its
+     * bucket, but never more than the largest value recorded.
+     * @param percentile The percentage, from 0.0 to 100.0
+     * @return the value in nanoseconds, 0 if none was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(100.0, percentile) / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(max, highestValue(i));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Finds the bucket of a value.
+     * @param value The value, not negative
+     * @return the index of the bucket
+     */
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        //the highest SUB_BUCKET_BITS + 1 bits of the value pick the bucket
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+    }
+
+    /**
+     * Gets the largest value counted in a bucket.
+     * @param bucket The index of the bucket
+     * @return the largest value of the bucket
+     */
+    private static long highestValue(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket >> SUB_BUCKET_BITS) - 1;
+        long lowest = (long) (SUB_BUCKETS + (bucket & (SUB_BUCKETS - 1))) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
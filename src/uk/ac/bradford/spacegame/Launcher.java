@@ -1,33 +1,168 @@
 package uk.ac.bradford.spacegame;
 
 import java.awt.EventQueue;
+import java.io.IOException;
+import java.nio.file.Paths;
+import javax.management.JMException;
 
 /**
  * This class is the entry point for the project, containing the main method that
  * starts a game. It creates instances of the different classes of this project
- * and connects them appropriately.
+ * and connects them appropriately. The size of the level can be given as two
+ * arguments, the width and the height in tiles; by default it is GRID_WIDTH
+ * by GRID_HEIGHT. Setting the system property spacegame.active to true
+ * draws the game with active rendering at spacegame.fps frames per second
+ * (60 by default) instead of with Swing repaints. Setting spacegame.record to
+ * a file name records the game to that replay log, and setting
+ * spacegame.replay to a replay log watches the recorded game instead of
+ * playing. Setting spacegame.tickrate plays the game in real time at that
+ * many turns per second instead of one turn per key press, and prints how
+ * well the game kept up with the rate when the program exits; a replay is
+ * always watched in real time, at REPLAY_TICK_RATE turns per second unless
+ * spacegame.tickrate is set. Setting
+ * spacegame.coalesce to latest performs only the newest of the key presses
+ * made while a turn was being performed, instead of all of them. Setting
+ * spacegame.timings to true times the phases of every turn, publishes the
+ * timings as a JMX MBean and prints them every spacegame.timings.dump
+ * seconds (10 by default, 0 to never print them); the paint metrics of the
+ * GUI are then published as an MBean as well. Setting spacegame.overlay
+ * to true shows the paint metrics over the game.
  * @author prtrundl
  */
 public class Launcher {
-    
+
+    /**
+     * The number of turns per second a replay is watched at by default.
+     */
+    private static final int REPLAY_TICK_RATE = 7;
+
     public static void main(String[] args) {
+        final ReplayPlayer replay;
+        try {
+            String log = System.getProperty("spacegame.replay");
+            replay = log != null ? new ReplayPlayer(Paths.get(log)) : null;
+        } catch (IOException e) {
+            System.out.println("Exception reading replay log: " + e.getMessage());
+            return;
+        }
+        final int width = replay != null ? replay.getWidth()
+                : args.length >= 2 ? Integer.parseInt(args[0]) : GameEngine.GRID_WIDTH;
+        final int height = replay != null ? replay.getHeight()
+                : args.length >= 2 ? Integer.parseInt(args[1]) : GameEngine.GRID_HEIGHT;
         EventQueue.invokeLater(new Runnable() {
-        
+
             /**
              * The run method starts the game in a separate thread. It creates
-             * the GUI, the engine and the input handler ?classes and connects
-             * those that call other objects.
+             * the GUI, the engine, the game loop and the input handler classes
+             * and connects those that call other objects. The engine starts
+             * the game when it is created, and from then on only the game
+             * loop thread uses it.
              */
             @Override
             public void run() {
-                GameGUI gui = new GameGUI();            //create GUI
-                gui.setVisible(true);                   //display GUI
-                GameEngine eng = new GameEngine(gui);   //create engine
-                InputHandler i = new InputHandler(eng);   //create input handler
-                gui.registerKeyHandler(i);              //registers handler with GUI
-                eng.startGame();                        //starts the game
+                int columns = Math.min(width, GameEngine.GRID_WIDTH);
+                int rows = Math.min(height, GameEngine.GRID_HEIGHT);
+                GameDisplay display;
+                if (Boolean.getBoolean("spacegame.active")) {
+                    ActiveGUI gui = new ActiveGUI(columns, rows,
+                            Integer.getInteger("spacegame.fps", 60));   //create GUI
+                    publish(gui.getPaintMetrics());
+                    gui.setVisible(true);                   //display GUI
+                    display = gui;
+                } else {
+                    GameGUI gui = new GameGUI(columns, rows);  //create GUI
+                    gui.setOverlay(Boolean.getBoolean("spacegame.overlay"));
+                    publish(gui.getPaintMetrics());
+                    gui.setVisible(true);                   //display GUI
+                    display = gui;
+                }
+                if (replay != null) {
+                    GameEngine eng = replay.createEngine(display);  //create engine of the recorded game
+                    replay.playInRealTime(eng, Integer.getInteger("spacegame.tickrate", REPLAY_TICK_RATE));
+                    return;
+                }
+                GameEngine eng = new GameEngine(display, width, height);   //create engine
+                record(eng);
+                time(eng);
+                int tickRate = Integer.getInteger("spacegame.tickrate", 0);
+                GameLoop loop;                          //create the thread running the turns
+                if (tickRate > 0) {
+                    loop = new GameLoop(eng, tickRate);
+                    Runtime.getRuntime().addShutdownHook(new Thread(() -> System.out.print(loop.report())));
+                } else {
+                    loop = new GameLoop(eng);
+                }
+                if ("latest".equalsIgnoreCase(System.getProperty("spacegame.coalesce"))) {
+                    loop.setCoalescing(InputCoalescing.LATEST);
+                }
+                InputHandler i = new InputHandler(loop);   //create input handler
+                if (display instanceof ActiveGUI) {
+                    ((ActiveGUI) display).registerKeyHandler(i);    //registers handler with GUI
+                } else {
+                    ((GameGUI) display).registerKeyHandler(i);
+                }
+                loop.start();                           //starts the game loop
             }
         });
     }
-    
+
+    /**
+     * Times the phases of the turns of an engine if the spacegame.timings
+     * system property is true, publishing the timings as an MBean and
+     * printing them periodically.
+     * @param eng The engine of the game
+     */
+    private static void time(GameEngine eng) {
+        if (!Boolean.getBoolean("spacegame.timings")) {
+            return;
+        }
+        TurnTimings timings = new TurnTimings();
+        eng.setTimings(timings);
+        try {
+            timings.register("game");
+        } catch (JMException e) {
+            System.out.println("Exception registering turn timings: " + e.getMessage());
+        }
+        int period = Integer.getInteger("spacegame.timings.dump", 10);
+        if (period > 0) {
+            timings.startDump(period, System.out);
+        }
+    }
+
+    /**
+     * Publishes the paint metrics of a display as an MBean if the
+     * spacegame.timings system property is true.
+     * @param metrics The paint metrics of the display
+     */
+    private static void publish(PaintMetrics metrics) {
+        if (!Boolean.getBoolean("spacegame.timings")) {
+            return;
+        }
+        try {
+            metrics.register("display");
+        } catch (JMException e) {
+            System.out.println("Exception registering paint metrics: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Records the game of an engine to the replay log named by the
+     * spacegame.record system property, if it is set. The log is also closed
+     * when the program exits before the game is over.
+     * @param eng The engine of the game
+     */
+    private static void record(GameEngine eng) {
+        String log = System.getProperty("spacegame.record");
+        if (log == null) {
+            return;
+        }
+        try {
+            ReplayRecorder recorder = new ReplayRecorder(Paths.get(log), eng);
+            eng.setRecorder(recorder);
+            Runtime.getRuntime().addShutdownHook(new Thread(recorder::close));
+        } catch (IOException e) {
+            System.out.println("Exception creating replay log: " + e.getMessage());
+        }
+    }
+
 }
@@ -0,0 +1,139 @@
+package uk.ac.bradford.spacegame;
+
+import uk.ac.bradford.spacegame.GameEngine.TileType;
+
+/**
+ * The ObstacleMap class holds precomputed distance tables for the tiles of a
+ * level. For every tile and every one of the eight movement directions it
+ * stores how many tiles can be travelled from that tile before reaching an
+ * obstacle or the edge of the level, so checking if a move is legal, how far
+ * a blaster can fly or how long a laser beam is takes a single array read.
+ * Tables are built when a level is generated; toggling pulsars does not change
+ * them because active and inactive pulsars are the same kind of obstacle.
+ * Tiles are packed as x * height + y.
+ * @author klaudiabzdyk
+ */
+public class ObstacleMap {
+
+    /**
+     * The kinds of obstacles that distances can be measured to. Black holes
+     * stop the player, blasters and lasers, while aliens and asteroids are
+     * also stopped by pulsars.
+     */
+    public enum Kind {
+        BLACK_HOLES, ALL_OBSTACLES
+    }
+
+    /**
+     * The width of the level, measured in tiles.
+     */
+    private int width;
+
+    /**
+     * The height of the level, measured in tiles.
+     */
+    private int height;
+
+    /**
+     * The distance tables, indexed by the ordinal of the Kind and of the
+     * Asteroid.Direction. The table for Direction.NONE is null.
+     */
+    private final int[][][] distances = new int[Kind.values().length][Asteroid.DIRECTIONS.length][];
+
+    /**
+     * Builds the distance tables for the tiles of a level. Arrays are only
+     * reallocated when the size of the level changes.
+     * @param tiles The 2D array of tiles of the level
+     */
+    public void rebuild(TileType[][] tiles) {
+        width = tiles.length;
+        height = width == 0 ? 0 : tiles[0].length;
+        for (Kind kind : Kind.values()) {
+            for (Asteroid.Direction d : Asteroid.DIRECTIONS) {
+                if (d != Asteroid.Direction.NONE) {
+                    build(tiles, kind, d);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the number of tiles that can be travelled from a tile in a
+     * direction before reaching an obstacle or the edge of the level.
+     * @param kind The kind of obstacles that stop the movement
+     * @param d The direction of the movement
+     * @param x The X co-ordinate of the starting tile
+     * @param y The Y co-ordinate of the starting tile
+     * @return the distance, 0 if the next tile is blocked or off the level,
+     * and always 0 for Direction.NONE
+     */
+    public int distance(Kind kind, Asteroid.Direction d, int x, int y) {
+        int[] table = distances[kind.ordinal()][d.ordinal()];
+        return table == null ? 0 : table[x * height + y];
+    }
+
+    /**
+     * Checks if moving one tile from a tile in a direction is legal.
+     * @param kind The kind of obstacles that stop the movement
+     * @param d The direction of the movement
+     * @param x The X co-ordinate of the starting tile
+     * @param y The Y co-ordinate of the starting tile
+     * @return true if the next tile is on the level and is not an obstacle
+     */
+    public boolean canMove(Kind kind, Asteroid.Direction d, int x, int y) {
+        return distance(kind, d, x, y) > 0;
+    }
+
+    /**
+     * Gets a whole distance table, so it can be queried in bulk, e.g. by AI
+     * or simulation code. The table must not be modified.
+     * @param kind The kind of obstacles that stop the movement
+     * @param d The direction of the movement
+     * @return the distance for every tile packed as x * height + y, or null
+     * for Direction.NONE
+     */
+    public int[] getTable(Kind kind, Asteroid.Direction d) {
+        return distances[kind.ordinal()][d.ordinal()];
+    }
+
+    /**
+     * Checks if a tile is an obstacle of the given kind.
+     * @param kind The kind of obstacles
+     * @param t The type of the tile
+     * @return true if the tile stops movement
+     */
+    private static boolean isObstacle(Kind kind, TileType t) {
+        return t == TileType.BLACK_HOLE || (kind == Kind.ALL_OBSTACLES && t != TileType.SPACE);
+    }
+
+    /**
+     * Builds one distance table. Tiles are processed starting from the edge
+     * the direction points to, so the distance of the next tile is always
+     * known when a tile is processed.
+     * @param tiles The 2D array of tiles of the level
+     * @param kind The kind of obstacles
+     * @param d The direction of the table
+     */
+    private void build(TileType[][] tiles, Kind kind, Asteroid.Direction d) {
+        int[] table = distances[kind.ordinal()][d.ordinal()];
+        if (table == null || table.length != width * height) {
+            table = new int[width * height];
+            distances[kind.ordinal()][d.ordinal()] = table;
+        }
+        int dx = d.getDX();
+        int dy = d.getDY();
+        for (int a = 0; a < width; a++) {
+            int i = dx > 0 ? width - 1 - a : a;
+            for (int b = 0; b < height; b++) {
+                int j = dy > 0 ? height - 1 - b : b;
+                int ni = i + dx;
+                int nj = j + dy;
+                if (ni < 0 || ni >= width || nj < 0 || nj >= height || isObstacle(kind, tiles[ni][nj])) {
+                    table[i * height + j] = 0;
+                } else {
+                    table[i * height + j] = 1 + table[ni * height + nj];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package uk.ac.bradford.spacegame;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * The OccupancyGrid class is an index from tiles to the entities standing in
+ * them, used for one kind of entity (one layer), e.g. asteroids or aliens.
+ * Entities are identified by their slot in the EntityStore holding them, which
+ * is also their index in the array the engine keeps them in. Every tile, packed
+ * as x * height + y, holds the first slot in that tile and every slot links to
+ * the next slot in the same tile, so checking whether a tile is occupied is a
+ * single array read. The EntityStore keeps the grid up to date whenever the
+ * position of a slot is set, including through Entity.setPosition.
+ * @author klaudiabzdyk
+ */
+public class OccupancyGrid {
+
+    /**
+     * The height of the level, used to pack tile co-ordinates.
+     */
+    private final int height;
+
+    /**
+     * For every packed tile, the first slot standing in it, or -1.
+     */
+    private final int[] head;
+
+    /**
+     * For every slot, the next slot standing in the same tile, or -1.
+     */
+    private final int[] next;
+
+    /**
+     * For every slot, the previous slot standing in the same tile, or -1.
+     */
+    private final int[] prev;
+
+    /**
+     * For every slot, the packed tile it is standing in, or -1 if it is not
+     * in the grid.
+     */
+    private final int[] cell;
+
+    /**
+     * Creates an empty grid for a level of the given size.
+     * @param width The width of the level, measured in tiles
+     * @param height The height of the level, measured in tiles
+     * @param capacity The number of slots, i.e. the length of the array of
+     * entities tracked by this grid
+     */
+    public OccupancyGrid(int width, int height, int capacity) {
+        this.height = height;
+        head = new int[width * height];
+        next = new int[capacity];
+        prev = new int[capacity];
+        cell = new int[capacity];
+        Arrays.fill(head, -1);
+        Arrays.fill(cell, -1);
+    }
+
+    /**
+     * Gets the first slot standing in the given tile.
+     * @param x The X co-ordinate of the tile
+     * @param y The Y co-ordinate of the tile
+     * @return the slot of an entity in the tile, or -1 if the tile is empty
+     */
+    public int first(int x, int y) {
+        return head[x * height + y];
+    }
+
+    /**
+     * Gets the next slot standing in the same tile as the given slot.
+     * @param slot A slot returned by first() or next()
+     * @return the slot of another entity in the same tile, or -1 if there
+     * are no more
+     */
+    public int next(int slot) {
+        return next[slot];
+    }
+
+    /**
+     * Checks if any entity of this layer is standing in the given tile.
+     * @param x The X co-ordinate of the tile
+     * @param y The Y co-ordinate of the tile
+     * @return true if the tile is occupied
+     */
+    public boolean isOccupied(int x, int y) {
+        return head[x * height + y] >= 0;
+    }
+
+    /**
+     * Puts a slot in the given tile, taking it out of the tile it was in
+     * before if there was one.
+     * @param slot The slot of the entity
+     * @param x The X co-ordinate of the new tile
+     * @param y The Y co-ordinate of the new tile
+     */
+    public void move(int slot, int x, int y) {
+        remove(slot);
+        int c = x * height + y;
+        int first = head[c];
+        next[slot] = first;
+        prev[slot] = -1;
+        if (first >= 0) {
+            prev[first] = slot;
+        }
+        head[c] = slot;
+        cell[slot] = c;
+    }
+
+    /**
+     * Takes a slot out of the grid, e.g. when its entity is destroyed.
+     * @param slot The slot of the entity
+     */
+    public void remove(int slot) {
+        int c = cell[slot];
+        if (c < 0) {
+            return;
+        }
+        if (prev[slot] >= 0) {
+            next[prev[slot]] = next[slot];
+        } else {
+            head[c] = next[slot];
+        }
+        if (next[slot] >= 0) {
+            prev[next[slot]] = prev[slot];
+        }
+        cell[slot] = -1;
+    }
+
+    /**
+     * Gets the number of bytes written by writeTo.
+     * @return the size of the state of the grid in bytes
+     */
+    public int snapshotSize() {
+        return 8 * cell.length;
+    }
+
+    /**
+     * Writes the state of the grid: the tile of every slot and the next slot
+     * in the same tile, which keeps the order of the slots in every tile.
+     * @param out The buffer to write to
+     */
+    public void writeTo(ByteBuffer out) {
+        for (int slot = 0; slot < cell.length; slot++) {
+            out.putInt(cell[slot]).putInt(next[slot]);
+        }
+    }
+
+    /**
+     * Restores the state of the grid written by writeTo, with the slots of
+     * every tile in the same order.
+     * @param in The buffer to read from
+     */
+    public void readFrom(ByteBuffer in) {
+        Arrays.fill(head, -1);
+        Arrays.fill(prev, -1);
+        for (int slot = 0; slot < cell.length; slot++) {
+            cell[slot] = in.getInt();
+            next[slot] = in.getInt();
+        }
+        for (int slot = 0; slot < cell.length; slot++) {
+            if (cell[slot] >= 0 && next[slot] >= 0) {
+                prev[next[slot]] = slot;
+            }
+        }
+        for (int slot = 0; slot < cell.length; slot++) {
+            if (cell[slot] >= 0 && prev[slot] < 0) {
+                head[cell[slot]] = slot;
+            }
+        }
+    }
+}
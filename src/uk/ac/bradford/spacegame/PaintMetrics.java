@@ -0,0 +1,236 @@
+package uk.ac.bradford.spacegame;
+
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * The PaintMetrics class measures the painting of the game by a Canvas: how
+ * long every frame takes to paint, how many sprites it draws, the frame rate,
+ * how many repaint requests Swing coalesced into one paint and how many
+ * snapshots of the game were replaced before they could be painted. The
+ * time, start and sprite count of the last FRAMES frames are kept in ring
+ * buffers of primitive arrays, so recording a frame allocates nothing. The
+ * metrics are recorded on the event dispatch thread and can be read by other
+ * threads, e.g. through JMX after register; the methods are synchronized so
+ * readers always see whole frames.
+ * @author klaudiabzdyk
+ */
+public class PaintMetrics implements PaintMetricsMBean {
+
+    /**
+     * The number of recent frames kept; a power of two.
+     */
+    private static final int FRAMES = 128;
+
+    /**
+     * The time every recent frame started, from System.nanoTime.
+     */
+    private final long[] starts = new long[FRAMES];
+
+    /**
+     * The time taken to paint every recent frame in nanoseconds.
+     */
+    private final long[] paintNanos = new long[FRAMES];
+
+    /**
+     * The number of sprites drawn in every recent frame.
+     */
+    private final int[] sprites = new int[FRAMES];
+
+    /**
+     * The number of frames painted; the next frame goes to index
+     * frames % FRAMES of the ring buffers.
+     */
+    private long frames;
+
+    /**
+     * The number of repaints requested.
+     */
+    private long requests;
+
+    /**
+     * The number of repaints requested since the last frame was painted.
+     */
+    private long pendingRequests;
+
+    /**
+     * The number of repaint requests coalesced into another one.
+     */
+    private long coalesced;
+
+    /**
+     * The number of snapshots received since the last frame was painted.
+     */
+    private long pendingSnapshots;
+
+    /**
+     * The number of snapshots replaced before they were painted.
+     */
+    private long dropped;
+
+    /**
+     * Records that a new snapshot of the game was received and the number of
+     * repaints requested to paint it.
+     * @param repaints The number of repaints requested
+     */
+    public synchronized void recordSnapshot(int repaints) {
+        pendingSnapshots++;
+        requests += repaints;
+        pendingRequests += repaints;
+    }
+
+    /**
+     * Records a painted frame. All the snapshots and repaint requests since
+     * the last frame are painted by it, so all but one of each were dropped
+     * or coalesced.
+     * @param start The time the frame started, from System.nanoTime
+     * @param nanos The time taken to paint the frame in nanoseconds
+     * @param spriteCount The number of sprites drawn
+     */
+    public synchronized void recordFrame(long start, long nanos, int spriteCount) {
+        int i = (int) (frames & (FRAMES - 1));
+        starts[i] = start;
+        paintNanos[i] = nanos;
+        sprites[i] = spriteCount;
+        frames++;
+        if (pendingRequests > 1) {
+            coalesced += pendingRequests - 1;
+        }
+        if (pendingSnapshots > 1) {
+            dropped += pendingSnapshots - 1;
+        }
+        pendingRequests = 0;
+        pendingSnapshots = 0;
+    }
+
+    /**
+     * Gets the number of frames painted.
+     * @return the number of frames
+     */
+    @Override
+    public synchronized long getFrames() {
+        return frames;
+    }
+
+    /**
+     * Gets the number of frames painted per second, over the recent frames.
+     * @return the frame rate, 0 if fewer than two frames were painted
+     */
+    @Override
+    public synchronized double getFramesPerSecond() {
+        int n = recent();
+        if (n < 2) {
+            return 0;
+        }
+        long last = starts[(int) ((frames - 1) & (FRAMES - 1))];
+        long first = starts[(int) ((frames - n) & (FRAMES - 1))];
+        return last == first ? 0 : (n - 1) * 1e9 / (last - first);
+    }
+
+    /**
+     * Gets the average time taken to paint a recent frame.
+     * @return the time in microseconds, 0 if no frame was painted
+     */
+    @Override
+    public synchronized double getAveragePaintMicros() {
+        int n = recent();
+        long total = 0;
+        for (int i = 0; i < n; i++) {
+            total += paintNanos[i];
+        }
+        return n == 0 ? 0 : total / 1e3 / n;
+    }
+
+    /**
+     * Gets the longest time taken to paint a recent frame.
+     * @return the time in microseconds, 0 if no frame was painted
+     */
+    @Override
+    public synchronized double getMaxPaintMicros() {
+        int n = recent();
+        long max = 0;
+        for (int i = 0; i < n; i++) {
+            max = Math.max(max, paintNanos[i]);
+        }
+        return max / 1e3;
+    }
+
+    /**
+     * Gets the average number of sprites drawn in a recent frame.
+     * @return the number of sprites, 0 if no frame was painted
+     */
+    @Override
+    public synchronized double getAverageSprites() {
+        int n = recent();
+        long total = 0;
+        for (int i = 0; i < n; i++) {
+            total += sprites[i];
+        }
+        return n == 0 ? 0 : (double) total / n;
+    }
+
+    /**
+     * Gets the number of repaints requested.
+     * @return the number of requests
+     */
+    @Override
+    public synchronized long getRepaintRequests() {
+        return requests;
+    }
+
+    /**
+     * Gets the number of repaint requests coalesced into another one.
+     * @return the number of coalesced requests
+     */
+    @Override
+    public synchronized long getCoalescedRepaints() {
+        return coalesced;
+    }
+
+    /**
+     * Gets the number of snapshots replaced before they were painted.
+     * @return the number of dropped snapshots
+     */
+    @Override
+    public synchronized long getDroppedSnapshots() {
+        return dropped;
+    }
+
+    /**
+     * Removes all the recorded metrics.
+     */
+    @Override
+    public synchronized void reset() {
+        frames = 0;
+        requests = 0;
+        pendingRequests = 0;
+        coalesced = 0;
+        pendingSnapshots = 0;
+        dropped = 0;
+    }
+
+    /**
+     * Gets the number of recent frames held by the ring buffers.
+     * @return the number of frames, at most FRAMES
+     */
+    private int recent() {
+        return (int) Math.min(frames, FRAMES);
+    }
+
+    /**
+     * Publishes the metrics as an MBean of the platform MBean server, named
+     * uk.ac.bradford.spacegame:type=PaintMetrics,name= followed by the given
+     * name.
+     * @param name The name of the metrics, e.g. the name of the display
+     * @return the name the MBean was registered with
+     * @throws JMException if the MBean cannot be registered, e.g. because
+     * the name is already taken
+     */
+    public ObjectName register(String name) throws JMException {
+        ObjectName objectName = new ObjectName("uk.ac.bradford.spacegame:type=PaintMetrics,name="
+                + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        return objectName;
+    }
+}
@@ -0,0 +1,67 @@
+package uk.ac.bradford.spacegame;
+
+/**
+ * The management interface of a PaintMetrics, through which the cost of
+ * painting the game can be watched with a JMX client such as JConsole while
+ * the game is played. The frame rate and paint times are those of the most
+ * recent frames; the counts are totals since the metrics were created or
+ * reset.
+ * @author klaudiabzdyk
+ */
+public interface PaintMetricsMBean {
+
+    /**
+     * Gets the number of frames painted.
+     * @return the number of frames
+     */
+    long getFrames();
+
+    /**
+     * Gets the number of frames painted per second recently.
+     * @return the frame rate
+     */
+    double getFramesPerSecond();
+
+    /**
+     * Gets the average time taken to paint a recent frame.
+     * @return the time in microseconds
+     */
+    double getAveragePaintMicros();
+
+    /**
+     * Gets the longest time taken to paint a recent frame.
+     * @return the time in microseconds
+     */
+    double getMaxPaintMicros();
+
+    /**
+     * Gets the average number of sprites drawn in a recent frame.
+     * @return the number of sprites
+     */
+    double getAverageSprites();
+
+    /**
+     * Gets the number of repaints requested.
+     * @return the number of requests
+     */
+    long getRepaintRequests();
+
+    /**
+     * Gets the number of repaint requests that Swing coalesced with others
+     * into one paint.
+     * @return the number of coalesced requests
+     */
+    long getCoalescedRepaints();
+
+    /**
+     * Gets the number of snapshots of the game that were replaced by a newer
+     * one before they were painted.
+     * @return the number of dropped snapshots
+     */
+    long getDroppedSnapshots();
+
+    /**
+     * Removes all the recorded metrics.
+     */
+    void reset();
+}
@@ -0,0 +1,11 @@
+package uk.ac.bradford.spacegame;
+
+/**
+ * An enumeration type to represent the actions a player can take in a turn:
+ * doing nothing, moving one tile in one of four directions, or firing the
+ * blasters. Each action matches a key handled by the InputHandler.
+ * @author klaudiabzdyk
+ */
+public enum PlayerAction {
+    NONE, LEFT, RIGHT, UP, DOWN, FIRE
+}
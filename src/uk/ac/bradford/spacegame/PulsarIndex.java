@@ -0,0 +1,144 @@
+package uk.ac.bradford.spacegame;
+
+import java.util.Arrays;
+import uk.ac.bradford.spacegame.GameEngine.TileType;
+
+/**
+ * The PulsarIndex class records where the pulsars of a level are and keeps a
+ * damage field, the number of active pulsars in or adjacent to every tile.
+ * Pulsars are recorded as packed tiles (x * height + y) in a compact int array
+ * while the level is generated, and the damage field is rebuilt every time the
+ * pulsars are toggled by visiting only the tiles around the pulsars. The
+ * damage a pulsar deals to the player in a tile is then a single array read.
+ * @author klaudiabzdyk
+ */
+public class PulsarIndex {
+
+    /**
+     * The width of the level, measured in tiles.
+     */
+    private int width;
+
+    /**
+     * The height of the level, measured in tiles.
+     */
+    private int height;
+
+    /**
+     * The packed tiles of the pulsars. Only the first count entries are used.
+     */
+    private int[] cells = new int[16];
+
+    /**
+     * The number of pulsars recorded.
+     */
+    private int count;
+
+    /**
+     * For every packed tile, the number of active pulsars in the 3x3 block
+     * of tiles centred on it.
+     */
+    private byte[] damage = new byte[0];
+
+    /**
+     * Removes every pulsar, preparing the index for a new level of the given
+     * size.
+     * @param width The width of the level, measured in tiles
+     * @param height The height of the level, measured in tiles
+     */
+    public void reset(int width, int height) {
+        if (damage.length != width * height) {
+            damage = new byte[width * height];
+        } else {
+            clearDamage();
+        }
+        this.width = width;
+        this.height = height;
+        count = 0;
+    }
+
+    /**
+     * Records a pulsar, active or inactive, in the given tile.
+     * @param x The X co-ordinate of the pulsar
+     * @param y The Y co-ordinate of the pulsar
+     */
+    public void add(int x, int y) {
+        if (count == cells.length) {
+            cells = Arrays.copyOf(cells, count * 2);
+        }
+        cells[count++] = x * height + y;
+    }
+
+    /**
+     * Gets the number of pulsars recorded.
+     * @return the number of pulsars in the level
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Gets the X co-ordinate of a pulsar.
+     * @param i The index of the pulsar, less than size()
+     * @return the X co-ordinate of the pulsar
+     */
+    public int getX(int i) {
+        return cells[i] / height;
+    }
+
+    /**
+     * Gets the Y co-ordinate of a pulsar.
+     * @param i The index of the pulsar, less than size()
+     * @return the Y co-ordinate of the pulsar
+     */
+    public int getY(int i) {
+        return cells[i] % height;
+    }
+
+    /**
+     * Rebuilds the damage field from the current state of the pulsars. Must be
+     * called after the level is generated and whenever pulsars are toggled.
+     * @param tiles The tiles of the level, used to check which pulsars are
+     * active
+     */
+    public void updateDamage(Tiles tiles) {
+        clearDamage();
+        for (int i = 0; i < count; i++) {
+            int x = getX(i);
+            int y = getY(i);
+            if (tiles.get(x, y) == TileType.PULSAR_ACTIVE) {
+                for (int dx = Math.max(x - 1, 0); dx <= Math.min(x + 1, width - 1); dx++) {
+                    for (int dy = Math.max(y - 1, 0); dy <= Math.min(y + 1, height - 1); dy++) {
+                        damage[dx * height + dy]++;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the number of active pulsars in or adjacent to a tile.
+     * @param x The X co-ordinate of the tile
+     * @param y The Y co-ordinate of the tile
+     * @return the number of active pulsars, from 0 to 9
+     */
+    public int damageAt(int x, int y) {
+        return damage[x * height + y];
+    }
+
+    /**
+     * Sets the damage field back to zero, visiting only the tiles around the
+     * recorded pulsars.
+     */
+    private void clearDamage() {
+        for (int i = 0; i < count; i++) {
+            int x = getX(i);
+            int y = getY(i);
+            for (int dx = Math.max(x - 1, 0); dx <= Math.min(x + 1, width - 1); dx++) {
+                for (int dy = Math.max(y - 1, 0); dy <= Math.min(y + 1, height - 1); dy++) {
+                    damage[dx * height + dy] = 0;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package uk.ac.bradford.spacegame;
+
+/**
+ * The RandomStream class is a small and fast random number generator using
+ * the SplitMix64 algorithm, the same one used by SplittableRandom. Its whole
+ * state is one long value which can be read and set, so a stream can be saved
+ * and continued later. A stream can be split into a new stream for another
+ * part of the game, so the parts take their random numbers independently and
+ * a change in how many numbers one part uses does not change the others.
+ * Streams are not thread safe; every engine has its own.
+ * @author klaudiabzdyk
+ */
+public final class RandomStream {
+
+    /**
+     * The odd constant added to the state for every number, 2^64 divided by
+     * the golden ratio.
+     */
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    /**
+     * The state of the stream.
+     */
+    private long state;
+
+    /**
+     * Creates a stream. Streams created with the same seed give the same
+     * numbers.
+     * @param seed The seed of the stream
+     */
+    public RandomStream(long seed) {
+        state = seed;
+    }
+
+    /**
+     * Creates a new stream seeded from the next number of this stream. The
+     * seed is mixed, so the new stream starts far from this one.
+     * @return the new stream
+     */
+    public RandomStream split() {
+        return new RandomStream(mix(nextLong()));
+    }
+
+    /**
+     * Gets the state of the stream, to continue it later with setState.
+     * @return the state
+     */
+    public long getState() {
+        return state;
+    }
+
+    /**
+     * Sets the state of the stream, so it gives the same numbers as when the
+     * state was read.
+     * @param state A state read with getState
+     */
+    public void setState(long state) {
+        this.state = state;
+    }
+
+    /**
+     * Gets the next random long value, all 2^64 values being equally likely.
+     * @return the random value
+     */
+    public long nextLong() {
+        state += GOLDEN_GAMMA;
+        return mix(state);
+    }
+
+    /**
+     * Gets a random int value from 0 up to a bound, each being equally likely.
+     * @param bound The bound, which must be positive
+     * @return the random value, from 0 to bound - 1
+     * @throws IllegalArgumentException if the bound is not positive
+     */
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("Bound must be positive: " + bound);
+        }
+        int r = (int) (nextLong() >>> 33);
+        int m = bound - 1;
+        if ((bound & m) == 0) {
+            return (int) ((bound * (long) r) >> 31);
+        }
+        //values from the incomplete last range of bound values are rejected,
+        //so every result stays equally likely
+        int u = r;
+        while (u - (r = u % bound) + m < 0) {
+            u = (int) (nextLong() >>> 33);
+        }
+        return r;
+    }
+
+    /**
+     * Gets a random double value from 0.0 up to 1.0.
+     * @return the random value, at least 0.0 and less than 1.0
+     */
+    public double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * Gets a random boolean value, true and false being equally likely.
+     * @return the random value
+     */
+    public boolean nextBoolean() {
+        return nextLong() < 0;
+    }
+
+    /**
+     * Mixes the bits of a value, the output function of SplitMix64.
+     * @param z The value to mix
+     * @return the mixed value
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
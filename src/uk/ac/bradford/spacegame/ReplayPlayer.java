@@ -0,0 +1,193 @@
+package uk.ac.bradford.spacegame;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The ReplayPlayer class plays a replay log written by a ReplayRecorder
+ * again. The log is read into memory when the player is created. It can be
+ * played without a display as fast as possible, e.g. to reproduce a bug or
+ * to time a game that was slow, or at a fixed tick rate by a GameLoop with a
+ * display, e.g. to watch a game in a GameGUI, with its turns run the same
+ * way as those of a game played in real time.
+ * @author klaudiabzdyk
+ */
+public class ReplayPlayer {
+
+    /**
+     * All PlayerAction values, indexed by the bytes of the log.
+     */
+    private static final PlayerAction[] ACTIONS = PlayerAction.values();
+
+    /**
+     * The width of the level of the recorded game, in tiles.
+     */
+    private final int width;
+
+    /**
+     * The height of the level of the recorded game, in tiles.
+     */
+    private final int height;
+
+    /**
+     * The seed of the recorded game.
+     */
+    private final long seed;
+
+    /**
+     * The ordinals of the actions of the player in every turn.
+     */
+    private final byte[] actions;
+
+    /**
+     * Reads a replay log.
+     * @param file The path of the log file
+     * @throws IOException if the file cannot be read or is not a replay log
+     */
+    public ReplayPlayer(Path file) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < ReplayRecorder.HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a replay log: " + file);
+            }
+            buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException("Unexpected end of replay log: " + file);
+                }
+            }
+        }
+        buffer.flip();
+        if (buffer.getInt() != ReplayRecorder.MAGIC || buffer.get() != ReplayRecorder.VERSION) {
+            throw new IOException("Not a replay log: " + file);
+        }
+        width = buffer.getInt();
+        height = buffer.getInt();
+        seed = buffer.getLong();
+        actions = new byte[buffer.remaining()];
+        buffer.get(actions);
+        for (byte a : actions) {
+            if (a < 0 || a >= ACTIONS.length) {
+                throw new IOException("Invalid action " + a + " in replay log: " + file);
+            }
+        }
+    }
+
+    /**
+     * Gets the width of the level of the recorded game.
+     * @return the width in tiles
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the height of the level of the recorded game.
+     * @return the height in tiles
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets the seed of the recorded game.
+     * @return the seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Gets the number of turns in the log.
+     * @return the number of turns
+     */
+    public int getTurns() {
+        return actions.length;
+    }
+
+    /**
+     * Gets the action of the player in a turn of the log.
+     * @param turn The index of the turn, from 0
+     * @return the action of the player
+     */
+    public PlayerAction getAction(int turn) {
+        return ACTIONS[actions[turn]];
+    }
+
+    /**
+     * Creates an engine starting the recorded game, with the size, seed and
+     * default difficulty of the game.
+     * @param display The display of the engine
+     * @return the new engine
+     */
+    public GameEngine createEngine(GameDisplay display) {
+        return new GameEngine(display, width, height, GameConfig.DEFAULT, seed);
+    }
+
+    /**
+     * Plays the whole log without a display, as fast as possible.
+     * @return the engine after the last turn, from which the result of the
+     * game can be read
+     */
+    public GameEngine playHeadless() {
+        GameEngine engine = createEngine(new HeadlessDisplay());
+        int turn = 0;
+        while (turn < actions.length && engine.step(getAction(turn))) {
+            turn++;
+        }
+        return engine;
+    }
+
+    /**
+     * Plays the log on an engine with a display at a fixed tick rate. The
+     * turns are performed by a real-time GameLoop on its own thread, which
+     * takes the recorded actions in order as the actions of its ticks and
+     * stops after the last one.
+     * @param engine The engine created by createEngine with the display
+     * @param tickRate The number of turns per second
+     * @return the started loop, which stops after the last turn and can be
+     * stopped earlier
+     * @throws IllegalArgumentException if the tick rate is not positive
+     */
+    public GameLoop playInRealTime(GameEngine engine, int tickRate) {
+        int[] turn = new int[1];
+        GameLoop[] loop = new GameLoop[1];
+        loop[0] = new GameLoop(engine, tickRate, e -> {
+            if (turn[0] == actions.length - 1) {
+                loop[0].stop();     //the turn of the last action is still performed
+            }
+            return getAction(turn[0]++);
+        });
+        if (actions.length == 0) {
+            loop[0].stop();
+        }
+        loop[0].start();
+        return loop[0];
+    }
+
+    /**
+     * Plays a replay log without a display as fast as possible and prints the
+     * result of the game and the time taken.
+     * @param args The path of the log file
+     * @throws IOException if the log cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: ReplayPlayer <replay log>");
+            return;
+        }
+        ReplayPlayer replay = new ReplayPlayer(Paths.get(args[0]));
+        long start = System.nanoTime();
+        GameEngine engine = replay.playHeadless();
+        long micros = (System.nanoTime() - start) / 1000;
+        System.out.println(replay.getTurns() + " turns of a " + replay.getWidth() + "x" + replay.getHeight()
+                + " game with seed " + replay.getSeed() + " replayed in " + micros + " us");
+        System.out.println("game over: " + engine.isGameOver() + ", levels cleared: " + engine.getLevelsCleared()
+                + ", points: " + engine.getPoints() + ", turn: " + engine.getTurnNumber());
+    }
+}
@@ -0,0 +1,148 @@
+package uk.ac.bradford.spacegame;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The ReplayRecorder class writes a replay log of a game, which a
+ * ReplayPlayer can play again. As the engine is seeded, the log only needs
+ * the size and seed of the game, followed by the action of the player in
+ * every turn, one byte per turn. The bytes are collected in a direct buffer
+ * and written to a file channel when it is full, so recording costs almost
+ * nothing per turn. Only games with the default difficulty settings can be
+ * recorded, from their first turn, as the log has no room for anything else.
+ * If the file cannot be written the error is printed and recording stops,
+ * but the game goes on. The methods are synchronized, so the log can be
+ * closed by another thread, e.g. when the program exits.
+ * <p>
+ * The log starts with a header of the MAGIC number, the VERSION byte, the
+ * width and height of the level as ints and the seed as a long, all big
+ * endian, followed by the ordinal of the PlayerAction of every turn.
+ * @author klaudiabzdyk
+ */
+public class ReplayRecorder implements Closeable {
+
+    /**
+     * The number every replay log starts with, "SPRL" in ASCII.
+     */
+    static final int MAGIC = 0x5350524C;
+
+    /**
+     * The version of the format of the log.
+     */
+    static final byte VERSION = 1;
+
+    /**
+     * The size of the header in bytes.
+     */
+    static final int HEADER_SIZE = 4 + 1 + 4 + 4 + 8;
+
+    /**
+     * The channel of the log file, or null once recording has stopped.
+     */
+    private FileChannel channel;
+
+    /**
+     * The bytes not written to the channel yet.
+     */
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(8192);
+
+    /**
+     * The number of turns recorded.
+     */
+    private int turns;
+
+    /**
+     * Creates a log file and writes its header. The log records a game with
+     * the size and seed of the given engine.
+     * @param file The path of the log file, replaced if it exists
+     * @param engine The engine of the game to record
+     * @throws IOException if the file cannot be created
+     * @throws IllegalArgumentException if the engine does not use the default
+     * difficulty settings or has already performed a turn, as a ReplayPlayer
+     * would then replay a different game
+     */
+    public ReplayRecorder(Path file, GameEngine engine) throws IOException {
+        if (engine.getConfig() != GameConfig.DEFAULT) {
+            throw new IllegalArgumentException("Only games with the default difficulty settings can be recorded");
+        }
+        if (engine.getTurnNumber() != 1) {
+            throw new IllegalArgumentException("Game must be recorded from its first turn, not turn " + engine.getTurnNumber());
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        buffer.putInt(MAGIC).put(VERSION).putInt(engine.getWidth()).putInt(engine.getHeight()).putLong(engine.getSeed());
+    }
+
+    /**
+     * Records the action of the player in a turn.
+     * @param action The action of the player
+     */
+    public synchronized void record(PlayerAction action) {
+        if (channel == null) {
+            return;
+        }
+        if (!buffer.hasRemaining()) {
+            flush();
+        }
+        buffer.put((byte) action.ordinal());
+        turns++;
+    }
+
+    /**
+     * Gets the number of turns recorded.
+     * @return the number of turns
+     */
+    public synchronized int getTurns() {
+        return turns;
+    }
+
+    /**
+     * Writes the buffered bytes to the log file.
+     */
+    public synchronized void flush() {
+        if (channel == null) {
+            return;
+        }
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            System.out.println("Exception writing replay log: " + e.getMessage());
+            e.printStackTrace(System.out);
+            stop();
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Writes the buffered bytes and closes the log file. Nothing more is
+     * recorded after this.
+     */
+    @Override
+    public synchronized void close() {
+        flush();
+        stop();
+    }
+
+    /**
+     * Stops recording and closes the channel.
+     */
+    private void stop() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.out.println("Exception closing replay log: " + e.getMessage());
+        }
+        channel = null;
+    }
+}
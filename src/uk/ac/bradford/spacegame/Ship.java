@@ -17,6 +17,21 @@ public abstract class Ship extends Entity {
      */
     protected int maxHull;
     
+    /**
+     * Creates a Ship that stores its own state.
+     */
+    protected Ship() {
+    }
+    
+    /**
+     * Creates a Ship that is a view of a slot in an EntityStore.
+     * @param s The EntityStore holding the state of this Ship
+     * @param i The slot of this Ship in the store
+     */
+    protected Ship(EntityStore s, int i) {
+        super(s, i);
+    }
+    
     /**
      * Method to get the ship's current hullStrength value.
      * @return the current hull strength of this Ship.
@@ -0,0 +1,259 @@
+package uk.ac.bradford.spacegame;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import uk.ac.bradford.spacegame.GameEngine.TileType;
+
+/**
+ * The SpawnIndex class keeps track of the tiles in the current level that are
+ * free for spawning, i.e. space tiles that are not occupied by the player, an
+ * alien or an asteroid. Tiles are stored as a single int packed from their
+ * co-ordinates (x * height + y) in a dense array, so picking a random free
+ * tile, claiming a tile and releasing it again all take constant time and do
+ * not create any objects.
+ * @author klaudiabzdyk
+ */
+public class SpawnIndex {
+
+    /**
+     * The height of the level, used to pack and unpack tile co-ordinates.
+     */
+    private int height;
+
+    /**
+     * Dense array of packed tiles that are currently free. Only the first
+     * size elements are used.
+     */
+    private int[] free = new int[0];
+
+    /**
+     * For every packed tile, the index of that tile in the free array, or -1
+     * if the tile is not free at the moment.
+     */
+    private int[] position = new int[0];
+
+    /**
+     * For every packed tile, the number of entities currently standing in it.
+     */
+    private int[] claims = new int[0];
+
+    /**
+     * For every packed tile, true if the tile is space and can ever be used
+     * for spawning.
+     */
+    private boolean[] spawnable = new boolean[0];
+
+    /**
+     * The number of free tiles stored at the start of the free array.
+     */
+    private int size;
+
+    /**
+     * Rebuilds the index from the tiles of a newly generated level. Every
+     * space tile becomes free and all previous claims are forgotten. Arrays
+     * are only reallocated when the size of the level changes.
+     * @param tiles The 2D array of tiles of the current level
+     */
+    public void reset(TileType[][] tiles) {
+        int width = tiles.length;
+        height = width == 0 ? 0 : tiles[0].length;
+        int cells = width * height;
+        if (free.length != cells) {
+            free = new int[cells];
+            position = new int[cells];
+            claims = new int[cells];
+            spawnable = new boolean[cells];
+        }
+        size = 0;
+        for (int i = 0; i < width; i++) {
+            for (int j = 0; j < height; j++) {
+                int cell = i * height + j;
+                claims[cell] = 0;
+                spawnable[cell] = tiles[i][j] == TileType.SPACE;
+                if (spawnable[cell]) {
+                    position[cell] = size;
+                    free[size++] = cell;
+                } else {
+                    position[cell] = -1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the number of tiles that are free for spawning at the moment.
+     * @return the number of free tiles
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Counts the free tiles in every row of the level.
+     * @param rows The array to put the counts in, indexed by the Y
+     * co-ordinate of the row; it must have an element for every row
+     */
+    public void countFreeByRow(int[] rows) {
+        Arrays.fill(rows, 0);
+        for (int i = 0; i < size; i++) {
+            rows[free[i] % height]++;
+        }
+    }
+
+    /**
+     * Checks if the tile at the given position is free for spawning.
+     * @param x The X co-ordinate of the tile
+     * @param y The Y co-ordinate of the tile
+     * @return true if the tile is space and no entity is standing in it
+     */
+    public boolean isFree(int x, int y) {
+        return position[x * height + y] >= 0;
+    }
+
+    /**
+     * Picks a random free tile without claiming it.
+     * @param rng The random number generator used to make the choice
+     * @return the packed co-ordinates of the tile, or -1 if no tile is free
+     */
+    public int pick(RandomStream rng) {
+        if (size == 0) {
+            return -1;
+        }
+        return free[rng.nextInt(size)];
+    }
+
+    /**
+     * Picks a random free tile and claims it, so it will not be picked again
+     * until it is released.
+     * @param rng The random number generator used to make the choice
+     * @return the packed co-ordinates of the tile, or -1 if no tile is free
+     */
+    public int take(RandomStream rng) {
+        int cell = pick(rng);
+        if (cell >= 0) {
+            claim(cell);
+        }
+        return cell;
+    }
+
+    /**
+     * Records that an entity has moved into the tile at the given position.
+     * The tile stops being free until every entity in it has left.
+     * @param x The X co-ordinate of the tile
+     * @param y The Y co-ordinate of the tile
+     */
+    public void claim(int x, int y) {
+        claim(x * height + y);
+    }
+
+    /**
+     * Records that an entity has left the tile at the given position, or has
+     * been destroyed while in it. The tile becomes free again once no entity
+     * is left in it, provided that it is a space tile.
+     * @param x The X co-ordinate of the tile
+     * @param y The Y co-ordinate of the tile
+     */
+    public void release(int x, int y) {
+        int cell = x * height + y;
+        if (claims[cell] > 0 && --claims[cell] == 0 && spawnable[cell]) {
+            position[cell] = size;
+            free[size++] = cell;
+        }
+    }
+
+    /**
+     * Gets the number of bytes written by writeTo.
+     * @return the size of the state of the index in bytes
+     */
+    public int snapshotSize() {
+        return 4 + 4 * size + 4 + 8 * countClaimed();
+    }
+
+    /**
+     * Writes the state of the index: the free tiles in the order they are
+     * picked from, and the number of claims of every claimed tile.
+     * @param out The buffer to write to
+     */
+    public void writeTo(ByteBuffer out) {
+        out.putInt(size);
+        for (int i = 0; i < size; i++) {
+            out.putInt(free[i]);
+        }
+        out.putInt(countClaimed());
+        for (int cell = 0; cell < claims.length; cell++) {
+            if (claims[cell] > 0) {
+                out.putInt(cell).putInt(claims[cell]);
+            }
+        }
+    }
+
+    /**
+     * Restores the state of the index written by writeTo, so it picks the
+     * same tiles as the index that was written.
+     * @param in The buffer to read from
+     * @param tiles The 2D array of tiles of the level the index was written
+     * for
+     */
+    public void readFrom(ByteBuffer in, TileType[][] tiles) {
+        reset(tiles);
+        Arrays.fill(position, -1);
+        size = in.getInt();
+        for (int i = 0; i < size; i++) {
+            free[i] = in.getInt();
+            position[free[i]] = i;
+        }
+        for (int i = in.getInt(); i > 0; i--) {
+            int cell = in.getInt();
+            claims[cell] = in.getInt();
+        }
+    }
+
+    /**
+     * Counts the tiles claimed by at least one entity.
+     * @return the number of claimed tiles
+     */
+    private int countClaimed() {
+        int claimed = 0;
+        for (int c : claims) {
+            if (c > 0) {
+                claimed++;
+            }
+        }
+        return claimed;
+    }
+
+    /**
+     * Gets the X co-ordinate of a packed tile returned by this index.
+     * @param cell The packed co-ordinates of a tile
+     * @return the X co-ordinate of the tile
+     */
+    public int getX(int cell) {
+        return cell / height;
+    }
+
+    /**
+     * Gets the Y co-ordinate of a packed tile returned by this index.
+     * @param cell The packed co-ordinates of a tile
+     * @return the Y co-ordinate of the tile
+     */
+    public int getY(int cell) {
+        return cell % height;
+    }
+
+    /**
+     * Claims a packed tile, removing it from the free array by moving the
+     * last free tile into its place.
+     * @param cell The packed co-ordinates of the tile
+     */
+    private void claim(int cell) {
+        if (claims[cell]++ == 0) {
+            int index = position[cell];
+            if (index >= 0) {
+                int last = free[--size];
+                free[index] = last;
+                position[last] = index;
+                position[cell] = -1;
+            }
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package uk.ac.bradford.spacegame;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.GraphicsEnvironment;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.imageio.ImageIO;
+import uk.ac.bradford.spacegame.GameEngine.TileType;
+
+/**
+ * The Sprites class loads the images used to draw the game, so they can be
+ * shared by the different ways of drawing the game. The images are copied
+ * into a single sprite atlas, one row of tiles created in a format compatible
+ * with the screen, and every sprite is drawn as a region of that atlas.
+ * Drawing from one managed image lets Java2D keep it in video memory and batch
+ * the draws. The class also chooses the sprite drawn for each tile of a level.
+ * Images are read concurrently on background threads from the assets folder
+ * of the classpath, where the build puts them, or from the assets folder in
+ * the working directory when they are not on the classpath. Until they are
+ * all read a placeholder atlas of plain tiles is drawn, so the first frame
+ * does not wait for the images.
+ * @author prtrundl & klaudiabzdyk
+ */
+public class Sprites {
+
+    /**
+     * The sprites in the atlas and the asset files they are loaded from. The
+     * ordinal of a sprite is its column in the atlas.
+     */
+    public enum Sprite {
+        SPACE1("space1.png"), SPACE2("space2.png"), SPACE3("space3.png"), SPACE4("space4.png"),
+        BLACK_HOLE("blackhole.png"), PLAYER("player.png"), ASTEROID("asteroid.png"),
+        PULSAR_ACTIVE("apulsar.png"), PULSAR_INACTIVE("ipulsar.png"), ALIEN("alien.png"),
+        BLASTER("fireBall.png"), LASER("laser.png");
+
+        /**
+         * The name of the asset file of the sprite.
+         */
+        private final String file;
+
+        /**
+         * Creates a sprite loaded from the given asset file.
+         * @param file The name of the asset file
+         */
+        Sprite(String file) {
+            this.file = file;
+        }
+    }
+
+    /**
+     * The atlas holding every sprite, side by side in one row. It is the
+     * placeholder atlas until every image has been read.
+     */
+    private volatile BufferedImage atlas;
+
+    /**
+     * Completed with this object once the images have been read and the
+     * atlas has been replaced.
+     */
+    private final CompletableFuture<Sprites> loaded;
+
+    /**
+     * The time taken to read the images and build the atlas, in nanoseconds,
+     * or 0 while they are being read.
+     */
+    private volatile long loadNanos;
+
+    /**
+     * Constructor that creates the placeholder atlas and starts reading the
+     * images of the sprites in the background.
+     */
+    public Sprites() {
+        atlas = createPlaceholder();
+        loaded = loadTileImages();
+    }
+
+    /**
+     * Gets a future completed when the images of the sprites have been read
+     * and are drawn instead of the placeholders, e.g. to repaint the game.
+     * Images that could not be read keep their placeholder.
+     * @return the completion future of the loading
+     */
+    public CompletableFuture<Sprites> loaded() {
+        return loaded;
+    }
+
+    /**
+     * Gets the time taken to read the images and build the atlas.
+     * @return the loading time in nanoseconds, or 0 if it is not finished
+     */
+    public long getLoadNanos() {
+        return loadNanos;
+    }
+
+    /**
+     * Creates an empty translucent atlas in the format of the screen, or a
+     * plain ARGB image when there is no screen.
+     * @param width The width of the atlas in pixels
+     * @param height The height of the atlas in pixels
+     * @return the atlas image
+     */
+    private static BufferedImage createAtlas(int width, int height) {
+        if (GraphicsEnvironment.isHeadless()) {
+            return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        }
+        return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                .getDefaultConfiguration().createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+    }
+
+    /**
+     * Creates the atlas drawn while the images are read: black space tiles
+     * and grey squares for everything else.
+     * @return the placeholder atlas
+     */
+    private static BufferedImage createPlaceholder() {
+        BufferedImage placeholder = createAtlas(Sprite.values().length * GameGUI.TILE_WIDTH, GameGUI.TILE_HEIGHT);
+        Graphics2D g2 = placeholder.createGraphics();
+        for (Sprite s : Sprite.values()) {
+            drawPlaceholder(g2, s);
+        }
+        g2.dispose();
+        return placeholder;
+    }
+
+    /**
+     * Draws the placeholder of a sprite into its column of an atlas.
+     * @param g2 The graphics object of the atlas
+     * @param s The sprite
+     */
+    private static void drawPlaceholder(Graphics2D g2, Sprite s) {
+        int x = s.ordinal() * GameGUI.TILE_WIDTH;
+        if (s.ordinal() <= Sprite.SPACE4.ordinal()) {
+            g2.setColor(Color.BLACK);
+            g2.fillRect(x, 0, GameGUI.TILE_WIDTH, GameGUI.TILE_HEIGHT);
+        } else {
+            g2.setColor(Color.GRAY);
+            g2.fillRect(x + 4, 4, GameGUI.TILE_WIDTH - 8, GameGUI.TILE_HEIGHT - 8);
+        }
+    }
+
+    /**
+     * Starts reading the tile images on a pool of background threads, one
+     * task for every image. When every task has finished a new atlas is built
+     * from the images and replaces the placeholder atlas.
+     * @return the future completed once the new atlas is in use
+     */
+    private CompletableFuture<Sprites> loadTileImages() {
+        long start = System.nanoTime();
+        Sprite[] sprites = Sprite.values();
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(sprites.length, Runtime.getRuntime().availableProcessors()), r -> {
+                    Thread t = new Thread(r, "sprite-loader");
+                    t.setDaemon(true);
+                    return t;
+                });
+        List<CompletableFuture<BufferedImage>> images = new ArrayList<>();
+        for (Sprite s : sprites) {
+            images.add(CompletableFuture.supplyAsync(() -> readImage(s), executor));
+        }
+        return CompletableFuture.allOf(images.toArray(new CompletableFuture<?>[0])).handle((ignored, failure) -> {
+            executor.shutdown();
+            BufferedImage complete = createAtlas(sprites.length * GameGUI.TILE_WIDTH, GameGUI.TILE_HEIGHT);
+            Graphics2D g2 = complete.createGraphics();
+            for (Sprite s : sprites) {
+                BufferedImage image = images.get(s.ordinal()).exceptionally(e -> null).join();
+                if (image != null) {
+                    g2.drawImage(image, s.ordinal() * GameGUI.TILE_WIDTH, 0, null);
+                } else {
+                    drawPlaceholder(g2, s);
+                }
+            }
+            g2.dispose();
+            atlas = complete;
+            loadNanos = System.nanoTime() - start;
+            return this;
+        });
+    }
+
+    /**
+     * Reads the image of a sprite from the assets folder of the classpath, or
+     * from the assets folder in the working directory if it is not on the
+     * classpath. Errors are printed and the sprite keeps its placeholder.
+     * @param s The sprite to read
+     * @return the image, or null if it could not be read
+     */
+    private static BufferedImage readImage(Sprite s) {
+        try {
+            URL url = Sprites.class.getResource("/assets/" + s.file);
+            BufferedImage image = url != null ? ImageIO.read(url) : ImageIO.read(new File("assets/" + s.file));
+            assert image.getHeight() == GameGUI.TILE_HEIGHT &&
+                    image.getWidth() == GameGUI.TILE_WIDTH;
+            return image;
+        } catch (IOException e) {
+            System.out.println("Exception loading images: " + e.getMessage());
+            e.printStackTrace(System.out);
+            return null;
+        }
+    }
+
+    /**
+     * Draws a sprite from the atlas.
+     * @param g2 The graphics object to use for drawing
+     * @param s The sprite to draw
+     * @param x The X co-ordinate of the top left corner, in pixels
+     * @param y The Y co-ordinate of the top left corner, in pixels
+     */
+    public void draw(Graphics2D g2, Sprite s, int x, int y) {
+        int sx = s.ordinal() * GameGUI.TILE_WIDTH;
+        g2.drawImage(atlas, x, y, x + GameGUI.TILE_WIDTH, y + GameGUI.TILE_HEIGHT,
+                sx, 0, sx + GameGUI.TILE_WIDTH, GameGUI.TILE_HEIGHT, null);
+    }
+
+    /**
+     * Picks the sprite drawn for a tile of a level.
+     * @param type The type of the tile
+     * @param x The X co-ordinate of the tile in the level
+     * @param y The Y co-ordinate of the tile in the level
+     * @return the sprite to draw in the tile
+     */
+    public Sprite tileSprite(TileType type, int x, int y) {
+        switch (type) {
+            case BLACK_HOLE:
+                return Sprite.BLACK_HOLE;
+            case PULSAR_ACTIVE:
+                return Sprite.PULSAR_ACTIVE;
+            case PULSAR_INACTIVE:
+                return Sprite.PULSAR_INACTIVE;
+            default:
+                return spaceSprite(x, y);
+        }
+    }
+
+    /**
+     * Picks one of the four space sprites for a tile. The choice only depends
+     * on the position of the tile, so it does not change as the viewport
+     * moves.
+     * @param x The X co-ordinate of the tile in the level
+     * @param y The Y co-ordinate of the tile in the level
+     * @return the space sprite to draw in the tile
+     */
+    public Sprite spaceSprite(int x, int y) {
+        int h = x * 0x9E3779B1 + y * 0x85EBCA6B;
+        h ^= h >>> 15;
+        h *= 0x2C1B3C6D;
+        switch (h >>> 30) {
+            case 0:
+                return Sprite.SPACE1;
+            case 1:
+                return Sprite.SPACE2;
+            case 2:
+                return Sprite.SPACE3;
+            default:
+                return Sprite.SPACE4;
+        }
+    }
+}
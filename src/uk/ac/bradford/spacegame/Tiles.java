@@ -0,0 +1,66 @@
+package uk.ac.bradford.spacegame;
+
+import uk.ac.bradford.spacegame.GameEngine.TileType;
+
+/**
+ * The Tiles interface represents the tiles that make up a level. Besides
+ * reading and writing single tiles it offers the bulk operation the engine
+ * performs every few turns, toggling the pulsars, so implementations can do
+ * it without visiting every tile. The level can also be converted to a 2D array of TileTypes,
+ * which is what the display draws.
+ * @author klaudiabzdyk
+ */
+public interface Tiles {
+
+    /**
+     * Gets the width of the level.
+     * @return the width of the level, measured in tiles
+     */
+    int getWidth();
+
+    /**
+     * Gets the height of the level.
+     * @return the height of the level, measured in tiles
+     */
+    int getHeight();
+
+    /**
+     * Gets the type of a tile.
+     * @param x The X co-ordinate of the tile
+     * @param y The Y co-ordinate of the tile
+     * @return the TileType of the tile
+     */
+    TileType get(int x, int y);
+
+    /**
+     * Sets the type of a tile.
+     * @param x The X co-ordinate of the tile
+     * @param y The Y co-ordinate of the tile
+     * @param type The new TileType of the tile
+     */
+    void set(int x, int y, TileType type);
+
+    /**
+     * Sets every tile of the level to the given type.
+     * @param type The TileType every tile is set to
+     */
+    void fill(TileType type);
+
+    /**
+     * Turns every inactive pulsar into an active pulsar.
+     */
+    void activatePulsars();
+
+    /**
+     * Turns every active pulsar into an inactive pulsar.
+     */
+    void deactivatePulsars();
+
+    /**
+     * Gets the level as a 2D array of TileTypes, indexed by X and then Y,
+     * e.g. to pass it to the display. The returned array must not be
+     * modified and may be reused by later calls.
+     * @return the tiles of the level
+     */
+    TileType[][] toArray();
+}
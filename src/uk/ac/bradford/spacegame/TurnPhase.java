@@ -0,0 +1,12 @@
+package uk.ac.bradford.spacegame;
+
+/**
+ * An enumeration type to represent the phases of a turn of the game timed by
+ * a TurnTimings: switching pulsars on or off, moving asteroids, moving aliens
+ * and their lasers, moving blasters, damage from pulsars, moving to a new
+ * level, drawing the game, and the whole turn.
+ * @author klaudiabzdyk
+ */
+public enum TurnPhase {
+    PULSARS, ASTEROIDS, ALIENS, BLASTERS, DAMAGE, LEVEL, DISPLAY, TURN
+}
@@ -0,0 +1,226 @@
+package uk.ac.bradford.spacegame;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * The TurnTimings class records how long every phase of the turns of a game
+ * takes, in a LatencyHistogram per TurnPhase, so it can be seen which phase
+ * dominates the time of a turn. An engine given a TurnTimings with
+ * setTimings times the phases of every turn with System.nanoTime and records
+ * them here once per turn; an engine without one does not time anything.
+ * The timings can be read by other threads while the game is played: they
+ * can be published as a JMX MBean with register, and a report can be
+ * printed periodically with startDump. The methods are synchronized, so
+ * readers always see whole turns.
+ * @author klaudiabzdyk
+ */
+public class TurnTimings implements TurnTimingsMBean {
+
+    /**
+     * All TurnPhase values, indexed by their ordinal.
+     */
+    private static final TurnPhase[] PHASES = TurnPhase.values();
+
+    /**
+     * The histogram of the times taken by every phase.
+     */
+    private final LatencyHistogram[] histograms = new LatencyHistogram[PHASES.length];
+
+    /**
+     * Prints the periodic report, or null if it is not printed.
+     */
+    private ScheduledExecutorService dumper;
+
+    /**
+     * Creates empty timings.
+     */
+    public TurnTimings() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Records the times taken by the phases of one turn.
+     * @param nanos The time taken by every phase in nanoseconds, indexed by
+     * the ordinal of the TurnPhase, or a negative value for the phases that
+     * were not performed in the turn
+     */
+    public synchronized void recordTurn(long[] nanos) {
+        for (int i = 0; i < histograms.length; i++) {
+            if (nanos[i] >= 0) {
+                histograms[i].record(nanos[i]);
+            }
+        }
+    }
+
+    /**
+     * Gets a copy of the histogram of the times taken by a phase.
+     * @param phase The phase of a turn
+     * @return the copy of the histogram
+     */
+    public synchronized LatencyHistogram getHistogram(TurnPhase phase) {
+        LatencyHistogram copy = new LatencyHistogram();
+        copy.add(histograms[phase.ordinal()]);
+        return copy;
+    }
+
+    /**
+     * Gets the number of turns timed.
+     * @return the number of turns
+     */
+    @Override
+    public synchronized long getTurns() {
+        return histograms[TurnPhase.TURN.ordinal()].getCount();
+    }
+
+    /**
+     * Gets the names of the timed phases, the values of TurnPhase.
+     * @return the names of the phases
+     */
+    @Override
+    public String[] getPhases() {
+        String[] names = new String[PHASES.length];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = PHASES[i].name();
+        }
+        return names;
+    }
+
+    /**
+     * Gets the average time taken by every phase.
+     * @return the averages in nanoseconds, indexed like getPhases
+     */
+    @Override
+    public synchronized double[] getMeanNanos() {
+        double[] means = new double[histograms.length];
+        for (int i = 0; i < means.length; i++) {
+            means[i] = histograms[i].getMean();
+        }
+        return means;
+    }
+
+    /**
+     * Gets the median time taken by every phase.
+     * @return the medians in nanoseconds, indexed like getPhases
+     */
+    @Override
+    public synchronized long[] getP50Nanos() {
+        return getPercentileNanos(50.0);
+    }
+
+    /**
+     * Gets the 99th percentile of the time taken by every phase.
+     * @return the percentiles in nanoseconds, indexed like getPhases
+     */
+    @Override
+    public synchronized long[] getP99Nanos() {
+        return getPercentileNanos(99.0);
+    }
+
+    /**
+     * Gets the longest time taken by every phase.
+     * @return the times in nanoseconds, indexed like getPhases
+     */
+    @Override
+    public synchronized long[] getMaxNanos() {
+        long[] maxima = new long[histograms.length];
+        for (int i = 0; i < maxima.length; i++) {
+            maxima[i] = histograms[i].getMax();
+        }
+        return maxima;
+    }
+
+    /**
+     * Gets a percentile of the time taken by every phase.
+     * @param percentile The percentage, from 0.0 to 100.0
+     * @return the percentiles in nanoseconds, indexed like getPhases
+     */
+    private long[] getPercentileNanos(double percentile) {
+        long[] values = new long[histograms.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = histograms[i].getValueAtPercentile(percentile);
+        }
+        return values;
+    }
+
+    /**
+     * Makes a report of the timings of every phase in microseconds: how
+     * often the phase was timed, the average, median, 99th percentile and
+     * longest time, and the share of the time of all turns spent in it.
+     * @return the report, a table with a line for every phase
+     */
+    @Override
+    public synchronized String getReport() {
+        long turnTotal = histograms[TurnPhase.TURN.ordinal()].getTotal();
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-10s %10s %10s %10s %10s %10s %7s%n",
+                "phase", "count", "mean us", "p50 us", "p99 us", "max us", "share"));
+        for (int i = 0; i < histograms.length; i++) {
+            LatencyHistogram h = histograms[i];
+            sb.append(String.format("%-10s %10d %10.1f %10.1f %10.1f %10.1f %6.1f%%%n",
+                    PHASES[i], h.getCount(), h.getMean() / 1e3,
+                    h.getValueAtPercentile(50.0) / 1e3, h.getValueAtPercentile(99.0) / 1e3,
+                    h.getMax() / 1e3, turnTotal == 0 ? 0.0 : 100.0 * h.getTotal() / turnTotal));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Removes all the recorded timings.
+     */
+    @Override
+    public synchronized void reset() {
+        for (LatencyHistogram h : histograms) {
+            h.reset();
+        }
+    }
+
+    /**
+     * Publishes the timings as an MBean of the platform MBean server, named
+     * uk.ac.bradford.spacegame:type=TurnTimings,name= followed by the given
+     * name.
+     * @param name The name of the timings, e.g. the name of the game
+     * @return the name the MBean was registered with
+     * @throws JMException if the MBean cannot be registered, e.g. because
+     * the name is already taken
+     */
+    public ObjectName register(String name) throws JMException {
+        ObjectName objectName = new ObjectName("uk.ac.bradford.spacegame:type=TurnTimings,name="
+                + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        return objectName;
+    }
+
+    /**
+     * Starts printing the report periodically on a daemon thread, until
+     * stopDump is called.
+     * @param periodSeconds The time between two reports in seconds
+     * @param out The stream to print the reports to
+     */
+    public synchronized void startDump(long periodSeconds, PrintStream out) {
+        stopDump();
+        dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "turn-timings-dump");
+            t.setDaemon(true);
+            return t;
+        });
+        dumper.scheduleAtFixedRate(() -> out.print(getReport()), periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stops printing the periodic report, if it is printed.
+     */
+    public synchronized void stopDump() {
+        if (dumper != null) {
+            dumper.shutdownNow();
+            dumper = null;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package uk.ac.bradford.spacegame;
+
+/**
+ * The management interface of a TurnTimings, through which the timings of
+ * the turns of a game can be watched with a JMX client such as JConsole
+ * while the game is played. The arrays are indexed like getPhases.
+ * @author klaudiabzdyk
+ */
+public interface TurnTimingsMBean {
+
+    /**
+     * Gets the number of turns timed.
+     * @return the number of turns
+     */
+    long getTurns();
+
+    /**
+     * Gets the names of the timed phases of a turn, the values of TurnPhase.
+     * @return the names of the phases
+     */
+    String[] getPhases();
+
+    /**
+     * Gets the average time taken by every phase.
+     * @return the averages in nanoseconds
+     */
+    double[] getMeanNanos();
+
+    /**
+     * Gets the median time taken by every phase.
+     * @return the medians in nanoseconds
+     */
+    long[] getP50Nanos();
+
+    /**
+     * Gets the 99th percentile of the time taken by every phase.
+     * @return the percentiles in nanoseconds
+     */
+    long[] getP99Nanos();
+
+    /**
+     * Gets the longest time taken by every phase.
+     * @return the times in nanoseconds
+     */
+    long[] getMaxNanos();
+
+    /**
+     * Makes a report of the timings of every phase.
+     * @return the report, a table with a line for every phase
+     */
+    String getReport();
+
+    /**
+     * Removes all the recorded timings.
+     */
+    void reset();
+}